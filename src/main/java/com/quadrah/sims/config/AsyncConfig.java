@@ -1,5 +1,6 @@
 package com.quadrah.sims.config;
 
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.context.annotation.Primary;
@@ -8,6 +9,8 @@ import org.springframework.scheduling.annotation.EnableAsync;
 import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
 
 import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionHandler;
+import java.util.concurrent.ThreadPoolExecutor;
 
 @Configuration
 @EnableAsync
@@ -23,4 +26,92 @@ public class AsyncConfig {
         executor.initialize();
         return executor;
     }
-}
\ No newline at end of file
+
+    // Calls to the Keycloak admin API; keep max size within keycloak.connection-pool-size
+    @Bean(name = "keycloakAdminExecutor")
+    public Executor keycloakAdminExecutor(@Value("${app.keycloak-admin.concurrency:8}") int concurrency) {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(concurrency);
+        executor.setMaxPoolSize(concurrency);
+        executor.setQueueCapacity(1000);
+        executor.setThreadNamePrefix("KeycloakAdmin-");
+        executor.initialize();
+        return executor;
+    }
+
+    // Runs the bulk realm user sync as a background job; one at a time
+    @Bean(name = "keycloakSyncExecutor")
+    public Executor keycloakSyncExecutor() {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(1);
+        executor.setMaxPoolSize(1);
+        executor.setQueueCapacity(1);
+        executor.setThreadNamePrefix("KeycloakSync-");
+        executor.initialize();
+        return executor;
+    }
+
+    // Notification dispatch lanes (see NotificationLanes). Emergencies never get rejected: if
+    // their queue is full the submitting thread runs the dispatch itself. The other lanes reject,
+    // leaving the event to the outbox sweeper.
+    @Bean(name = "emergencyNotificationExecutor")
+    public ThreadPoolTaskExecutor emergencyNotificationExecutor(
+            @Value("${app.notifications.lanes.emergency.concurrency:2}") int concurrency,
+            @Value("${app.notifications.lanes.emergency.queue-capacity:200}") int queueCapacity) {
+        return notificationLaneExecutor("NotificationEmergency-", concurrency, queueCapacity,
+                new ThreadPoolExecutor.CallerRunsPolicy());
+    }
+
+    @Bean(name = "standardNotificationExecutor")
+    public ThreadPoolTaskExecutor standardNotificationExecutor(
+            @Value("${app.notifications.lanes.standard.concurrency:2}") int concurrency,
+            @Value("${app.notifications.lanes.standard.queue-capacity:200}") int queueCapacity) {
+        return notificationLaneExecutor("NotificationStandard-", concurrency, queueCapacity,
+                new ThreadPoolExecutor.AbortPolicy());
+    }
+
+    @Bean(name = "bulkNotificationExecutor")
+    public ThreadPoolTaskExecutor bulkNotificationExecutor(
+            @Value("${app.notifications.lanes.bulk.concurrency:1}") int concurrency,
+            @Value("${app.notifications.lanes.bulk.queue-capacity:100}") int queueCapacity) {
+        return notificationLaneExecutor("NotificationBulk-", concurrency, queueCapacity,
+                new ThreadPoolExecutor.AbortPolicy());
+    }
+
+    private ThreadPoolTaskExecutor notificationLaneExecutor(String threadNamePrefix, int concurrency, int queueCapacity,
+                                                            RejectedExecutionHandler rejectedExecutionHandler) {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(concurrency);
+        executor.setMaxPoolSize(concurrency);
+        executor.setQueueCapacity(queueCapacity);
+        executor.setThreadNamePrefix(threadNamePrefix);
+        executor.setRejectedExecutionHandler(rejectedExecutionHandler);
+        executor.initialize();
+        return executor;
+    }
+
+    // Concurrent reads for the student health profile; each task holds a pooled connection,
+    // so keep this well below spring.datasource.hikari.maximum-pool-size
+    @Bean(name = "healthProfileExecutor")
+    public Executor healthProfileExecutor(@Value("${app.students.health-profile.concurrency:3}") int concurrency) {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(concurrency);
+        executor.setMaxPoolSize(concurrency);
+        executor.setQueueCapacity(500);
+        executor.setThreadNamePrefix("HealthProfile-");
+        executor.initialize();
+        return executor;
+    }
+
+    // Writes to SSE subscribers; each subscriber's queue is drained by one task at a time
+    @Bean(name = "notificationStreamExecutor")
+    public Executor notificationStreamExecutor(@Value("${app.notifications.stream.concurrency:4}") int concurrency) {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(concurrency);
+        executor.setMaxPoolSize(concurrency);
+        executor.setQueueCapacity(10000);
+        executor.setThreadNamePrefix("NotificationStream-");
+        executor.initialize();
+        return executor;
+    }
+}
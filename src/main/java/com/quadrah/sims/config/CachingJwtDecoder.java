@@ -0,0 +1,94 @@
+package com.quadrah.sims.config;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.security.oauth2.jwt.Jwt;
+import org.springframework.security.oauth2.jwt.JwtDecoder;
+import org.springframework.security.oauth2.jwt.JwtException;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Base64;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+// Remembers bearer tokens that the delegate has already verified, keyed by a SHA-256 digest
+// of the raw token. An entry lives until the token's exp (capped by maxTtl), so a cache hit
+// skips both the signature check and claim parsing.
+public class CachingJwtDecoder implements JwtDecoder {
+
+    private final JwtDecoder delegate;
+    private final int maxEntries;
+    private final Duration maxTtl;
+    private final Map<String, CachedJwt> cache = new ConcurrentHashMap<>();
+
+    private final Counter hits;
+    private final Counter misses;
+
+    public CachingJwtDecoder(JwtDecoder delegate, int maxEntries, Duration maxTtl, MeterRegistry meterRegistry) {
+        this.delegate = delegate;
+        this.maxEntries = maxEntries;
+        this.maxTtl = maxTtl;
+        this.hits = Counter.builder("sims.security.jwt.cache")
+                .tag("result", "hit")
+                .description("Verified JWT cache lookups")
+                .register(meterRegistry);
+        this.misses = Counter.builder("sims.security.jwt.cache")
+                .tag("result", "miss")
+                .description("Verified JWT cache lookups")
+                .register(meterRegistry);
+        meterRegistry.gauge("sims.security.jwt.cache.size", cache, Map::size);
+    }
+
+    @Override
+    public Jwt decode(String token) throws JwtException {
+        String key = digest(token);
+        Instant now = Instant.now();
+
+        CachedJwt cached = cache.get(key);
+        if (cached != null) {
+            if (cached.expiresAt().isAfter(now)) {
+                hits.increment();
+                return cached.jwt();
+            }
+            cache.remove(key, cached);
+        }
+
+        misses.increment();
+        Jwt jwt = delegate.decode(token);
+
+        // Tokens without exp are never cached
+        Instant expiresAt = jwt.getExpiresAt();
+        if (expiresAt != null) {
+            Instant cap = now.plus(maxTtl);
+            put(key, new CachedJwt(jwt, expiresAt.isBefore(cap) ? expiresAt : cap), now);
+        }
+        return jwt;
+    }
+
+    private void put(String key, CachedJwt entry, Instant now) {
+        if (cache.size() >= maxEntries) {
+            cache.values().removeIf(existing -> !existing.expiresAt().isAfter(now));
+            if (cache.size() >= maxEntries) {
+                // Still full of live tokens: skip caching rather than grow without bound
+                return;
+            }
+        }
+        cache.put(key, entry);
+    }
+
+    private static String digest(String token) {
+        try {
+            MessageDigest sha256 = MessageDigest.getInstance("SHA-256");
+            byte[] hash = sha256.digest(token.getBytes(StandardCharsets.US_ASCII));
+            return Base64.getEncoder().encodeToString(hash);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+
+    private record CachedJwt(Jwt jwt, Instant expiresAt) {}
+}
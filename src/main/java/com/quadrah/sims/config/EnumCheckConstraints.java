@@ -0,0 +1,95 @@
+package com.quadrah.sims.config;
+
+import com.quadrah.sims.model.KeycloakProvisioningTask;
+import com.quadrah.sims.model.Notification;
+import com.quadrah.sims.model.NotificationOutbox;
+import com.quadrah.sims.model.NotificationPreference;
+import jakarta.annotation.PostConstruct;
+import jakarta.persistence.EntityManagerFactory;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Collectors;
+
+// Hibernate 6 creates a CHECK (column IN (...)) constraint for every @Enumerated(STRING) column,
+// and ddl-auto=update never alters it afterwards, so a constant added to an enum (e.g. DIGEST)
+// can't be inserted into a table created before it existed. On startup, after the schema update
+// has run, every listed column whose check is missing a constant gets its check recreated.
+@Component
+public class EnumCheckConstraints {
+
+    private static final Logger logger = LoggerFactory.getLogger(EnumCheckConstraints.class);
+
+    private static final List<EnumColumn> COLUMNS = List.of(
+            new EnumColumn("notifications", "type", Notification.NotificationType.class),
+            new EnumColumn("notifications", "status", Notification.NotificationStatus.class),
+            new EnumColumn("notification_outbox", "type", Notification.NotificationType.class),
+            new EnumColumn("notification_outbox", "status", NotificationOutbox.Status.class),
+            new EnumColumn("notifications_archive", "type", Notification.NotificationType.class),
+            new EnumColumn("notifications_archive", "status", Notification.NotificationStatus.class),
+            new EnumColumn("broadcast_notifications", "type", Notification.NotificationType.class),
+            new EnumColumn("notification_preferences", "delivery_mode", NotificationPreference.DeliveryMode.class),
+            new EnumColumn("keycloak_provisioning_tasks", "operation", KeycloakProvisioningTask.Operation.class),
+            new EnumColumn("keycloak_provisioning_tasks", "status", KeycloakProvisioningTask.Status.class));
+
+    // Single-column check constraints on the column, in the current schema
+    private static final String FIND_CHECKS_SQL =
+            "SELECT con.conname, pg_get_constraintdef(con.oid) FROM pg_constraint con " +
+            "JOIN pg_class rel ON rel.oid = con.conrelid " +
+            "JOIN pg_namespace nsp ON nsp.oid = rel.relnamespace " +
+            "JOIN pg_attribute att ON att.attrelid = rel.oid AND att.attnum = con.conkey[1] " +
+            "WHERE con.contype = 'c' AND cardinality(con.conkey) = 1 " +
+            "AND nsp.nspname = current_schema() AND rel.relname = ? AND att.attname = ?";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+
+    // The EntityManagerFactory is only injected so this runs after Hibernate has updated the schema
+    public EnumCheckConstraints(JdbcTemplate jdbcTemplate, TransactionTemplate transactionTemplate,
+                                EntityManagerFactory entityManagerFactory) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = transactionTemplate;
+    }
+
+    @PostConstruct
+    public void update() {
+        for (EnumColumn column : COLUMNS) {
+            try {
+                transactionTemplate.executeWithoutResult(status -> update(column));
+            } catch (RuntimeException e) {
+                logger.warn("Could not update the check constraint on {}.{}", column.table(), column.column(), e);
+            }
+        }
+    }
+
+    private void update(EnumColumn column) {
+        List<String[]> checks = jdbcTemplate.query(FIND_CHECKS_SQL,
+                (rs, rowNum) -> new String[]{rs.getString(1), rs.getString(2)}, column.table(), column.column());
+        // No check at all (or a table Hibernate hasn't created) needs nothing
+        if (checks.isEmpty() || checks.stream().allMatch(check -> coversAll(check[1], column))) {
+            return;
+        }
+
+        for (String[] check : checks) {
+            jdbcTemplate.execute("ALTER TABLE " + column.table() + " DROP CONSTRAINT \"" + check[0] + "\"");
+        }
+        String values = Arrays.stream(column.type().getEnumConstants())
+                .map(constant -> "'" + constant.name() + "'")
+                .collect(Collectors.joining(", "));
+        jdbcTemplate.execute("ALTER TABLE " + column.table() + " ADD CONSTRAINT " + column.table() + "_" + column.column() +
+                "_check CHECK (" + column.column() + " IN (" + values + "))");
+        logger.info("Recreated the check constraint on {}.{} with values {}", column.table(), column.column(), values);
+    }
+
+    private static boolean coversAll(String definition, EnumColumn column) {
+        return Arrays.stream(column.type().getEnumConstants())
+                .allMatch(constant -> definition.contains("'" + constant.name() + "'"));
+    }
+
+    private record EnumColumn(String table, String column, Class<? extends Enum<?>> type) {}
+}
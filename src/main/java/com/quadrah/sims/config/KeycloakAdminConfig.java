@@ -25,6 +25,9 @@ public class KeycloakAdminConfig {
     @Value("${keycloak.credentials.secret}")
     private String clientSecret;
 
+    @Value("${keycloak.connection-pool-size:20}")
+    private int connectionPoolSize;
+
     @Bean
     public Keycloak keycloak() {
         return KeycloakBuilder.builder()
@@ -35,7 +38,8 @@ public class KeycloakAdminConfig {
                 .clientSecret(clientSecret)
                 .resteasyClient(
                         new ResteasyClientBuilderImpl()
-                                .connectionPoolSize(20)
+                                .connectionPoolSize(connectionPoolSize)
+                                .maxPooledPerRoute(connectionPoolSize)
                                 .connectTimeout(30, TimeUnit.SECONDS)
                                 .readTimeout(60, TimeUnit.SECONDS)
                                 .build()
@@ -0,0 +1,159 @@
+package com.quadrah.sims.config;
+
+import com.quadrah.sims.model.UserAccount;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.oauth2.jwt.Jwt;
+import org.springframework.stereotype.Component;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.EnumMap;
+import java.util.HashSet;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
+
+// Maps Keycloak realm/client roles to Spring authorities and the local UserRole.
+// The role tables are built once from properties; each token is then resolved in a single
+// pass over realm_access and resource_access without re-lowercasing the role set.
+@Component
+public class RoleMappingEngine {
+
+    private static final int MAX_CACHED_AUTHORITIES = 1024;
+
+    // Higher rank wins when a user holds several mapped roles
+    private final Map<String, UserAccount.UserRole> roleRanks = new TreeMap<>(String.CASE_INSENSITIVE_ORDER);
+    // First configured Keycloak role name per local role, used when provisioning users
+    private final Map<UserAccount.UserRole, String> keycloakRoleNames = new EnumMap<>(UserAccount.UserRole.class);
+    private final Set<String> authorityClientIds;
+    private final Set<String> ignoredClientIds;
+    private final UserAccount.UserRole defaultRole;
+    private final Map<String, GrantedAuthority> authorityCache = new ConcurrentHashMap<>();
+
+    public RoleMappingEngine(@Value("${app.security.role-mapping.admin-roles:admin}") String[] adminRoles,
+                             @Value("${app.security.role-mapping.nurse-roles:nurse}") String[] nurseRoles,
+                             @Value("${app.security.role-mapping.teacher-roles:teacher}") String[] teacherRoles,
+                             @Value("${app.security.role-mapping.default-role:TEACHER}") UserAccount.UserRole defaultRole,
+                             @Value("${app.security.role-mapping.authority-client-ids:school-infirmary-client}") String[] authorityClientIds,
+                             @Value("${app.security.role-mapping.ignored-client-ids:account}") String[] ignoredClientIds) {
+        // Register lowest priority first so a name listed twice keeps the stronger role
+        register(teacherRoles, UserAccount.UserRole.TEACHER);
+        register(nurseRoles, UserAccount.UserRole.NURSE);
+        register(adminRoles, UserAccount.UserRole.ADMIN);
+        this.defaultRole = defaultRole;
+        this.authorityClientIds = clientIds(authorityClientIds);
+        this.ignoredClientIds = clientIds(ignoredClientIds);
+    }
+
+    public Resolution resolve(Jwt jwt) {
+        Set<GrantedAuthority> authorities = new HashSet<>();
+        UserAccount.UserRole role = null;
+
+        // Realm roles count towards both the authorities and the local role
+        Map<String, Object> realmAccess = jwt.getClaim("realm_access");
+        if (realmAccess != null) {
+            role = collect(realmAccess.get("roles"), authorities, true, role);
+        }
+
+        // Client roles: configured clients grant authorities, every non-ignored client feeds the local role
+        Map<String, Object> resourceAccess = jwt.getClaim("resource_access");
+        if (resourceAccess != null) {
+            for (Map.Entry<String, Object> client : resourceAccess.entrySet()) {
+                boolean grantsAuthorities = authorityClientIds.contains(client.getKey());
+                boolean ranked = !ignoredClientIds.contains(client.getKey());
+                if (!(client.getValue() instanceof Map<?, ?> clientAccess) || (!grantsAuthorities && !ranked)) {
+                    continue;
+                }
+                role = collect(clientAccess.get("roles"), grantsAuthorities ? authorities : null, ranked, role);
+            }
+        }
+
+        return new Resolution(authorities, role != null ? role : defaultRole);
+    }
+
+    public Optional<String> keycloakRoleFor(UserAccount.UserRole role) {
+        return Optional.ofNullable(keycloakRoleNames.get(role));
+    }
+
+    // Local role a Keycloak role name maps to, if any
+    public Optional<UserAccount.UserRole> mappedRole(String roleName) {
+        return roleName == null ? Optional.empty() : Optional.ofNullable(roleRanks.get(roleName));
+    }
+
+    // Whether roles from this client take part in local role resolution
+    public boolean ranksClient(String clientId) {
+        return !ignoredClientIds.contains(clientId);
+    }
+
+    // Resolves the local role from plain role names, e.g. Keycloak admin API role mappings
+    public UserAccount.UserRole resolveRole(Collection<String> roleNames) {
+        UserAccount.UserRole role = collect(roleNames, null, true, null);
+        return role != null ? role : defaultRole;
+    }
+
+    private UserAccount.UserRole collect(Object roles, Set<GrantedAuthority> authorities, boolean ranked,
+                                         UserAccount.UserRole current) {
+        if (!(roles instanceof Collection<?> roleNames)) {
+            return current;
+        }
+        for (Object value : roleNames) {
+            if (!(value instanceof String roleName)) {
+                continue;
+            }
+            if (authorities != null) {
+                authorities.add(authorityFor(roleName));
+            }
+            if (ranked) {
+                UserAccount.UserRole mapped = roleRanks.get(roleName);
+                if (mapped != null && (current == null || rank(mapped) > rank(current))) {
+                    current = mapped;
+                }
+            }
+        }
+        return current;
+    }
+
+    private GrantedAuthority authorityFor(String roleName) {
+        GrantedAuthority authority = authorityCache.get(roleName);
+        if (authority == null) {
+            authority = new SimpleGrantedAuthority("ROLE_" + roleName.toUpperCase(Locale.ROOT));
+            if (authorityCache.size() < MAX_CACHED_AUTHORITIES) {
+                authorityCache.put(roleName, authority);
+            }
+        }
+        return authority;
+    }
+
+    private void register(String[] roleNames, UserAccount.UserRole role) {
+        for (String roleName : roleNames) {
+            if (!roleName.isBlank()) {
+                roleRanks.put(roleName.trim(), role);
+                keycloakRoleNames.putIfAbsent(role, roleName.trim());
+            }
+        }
+    }
+
+    // Trimmed like the role names, so "a, b" in the properties matches client "b"
+    private static Set<String> clientIds(String[] clientIds) {
+        return Arrays.stream(clientIds)
+                .map(String::trim)
+                .filter(clientId -> !clientId.isEmpty())
+                .collect(Collectors.toUnmodifiableSet());
+    }
+
+    private static int rank(UserAccount.UserRole role) {
+        return switch (role) {
+            case ADMIN -> 3;
+            case NURSE -> 2;
+            case TEACHER -> 1;
+        };
+    }
+
+    public record Resolution(Collection<GrantedAuthority> authorities, UserAccount.UserRole role) {}
+}
@@ -0,0 +1,34 @@
+package com.quadrah.sims.config;
+
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageChannel;
+import org.springframework.messaging.simp.stomp.StompCommand;
+import org.springframework.messaging.simp.stomp.StompHeaderAccessor;
+import org.springframework.messaging.support.ChannelInterceptor;
+import org.springframework.messaging.support.MessageHeaderAccessor;
+import org.springframework.security.access.AccessDeniedException;
+import org.springframework.security.core.Authentication;
+
+// Only lets a session subscribe to /topic/roles/{ROLE} when its principal holds ROLE_{ROLE}
+public class RoleTopicSubscriptionInterceptor implements ChannelInterceptor {
+
+    @Override
+    public Message<?> preSend(Message<?> message, MessageChannel channel) {
+        StompHeaderAccessor accessor = MessageHeaderAccessor.getAccessor(message, StompHeaderAccessor.class);
+        if (accessor == null || accessor.getCommand() != StompCommand.SUBSCRIBE) {
+            return message;
+        }
+
+        String destination = accessor.getDestination();
+        if (destination == null || !destination.startsWith(WebSocketConfig.ROLE_TOPIC_PREFIX)) {
+            return message;
+        }
+
+        String authority = "ROLE_" + destination.substring(WebSocketConfig.ROLE_TOPIC_PREFIX.length());
+        if (!(accessor.getUser() instanceof Authentication authentication)
+                || authentication.getAuthorities().stream().noneMatch(a -> authority.equals(a.getAuthority()))) {
+            throw new AccessDeniedException("Not allowed to subscribe to " + destination);
+        }
+        return message;
+    }
+}
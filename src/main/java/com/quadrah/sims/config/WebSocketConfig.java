@@ -1,19 +1,52 @@
 package com.quadrah.sims.config;
 
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.messaging.simp.config.ChannelRegistration;
 import org.springframework.messaging.simp.config.MessageBrokerRegistry;
 import org.springframework.web.socket.config.annotation.EnableWebSocketMessageBroker;
 import org.springframework.web.socket.config.annotation.StompEndpointRegistry;
 import org.springframework.web.socket.config.annotation.WebSocketMessageBrokerConfigurer;
+import org.springframework.web.socket.config.annotation.WebSocketTransportRegistration;
+
+import java.time.Duration;
 
 @Configuration
 @EnableWebSocketMessageBroker
 public class WebSocketConfig implements WebSocketMessageBrokerConfigurer {
 
+    // Role-wide alerts go to ROLE_TOPIC_PREFIX + role name, per-user messages to /user/queue/...
+    public static final String ROLE_TOPIC_PREFIX = "/topic/roles/";
+    public static final String USER_NOTIFICATION_QUEUE = "/queue/notifications";
+    // Broadcasts addressed to every user
+    public static final String BROADCAST_TOPIC = "/topic/broadcasts";
+
+    private final int inboundPoolSize;
+    private final int outboundPoolSize;
+    private final int outboundQueueCapacity;
+    private final Duration sendTimeLimit;
+    private final int sendBufferSizeLimit;
+    private final int messageSizeLimit;
+
+    public WebSocketConfig(@Value("${app.websocket.inbound.pool-size:4}") int inboundPoolSize,
+                           @Value("${app.websocket.outbound.pool-size:4}") int outboundPoolSize,
+                           @Value("${app.websocket.outbound.queue-capacity:10000}") int outboundQueueCapacity,
+                           @Value("${app.websocket.send-time-limit:10s}") Duration sendTimeLimit,
+                           @Value("${app.websocket.send-buffer-size-limit:524288}") int sendBufferSizeLimit,
+                           @Value("${app.websocket.message-size-limit:65536}") int messageSizeLimit) {
+        this.inboundPoolSize = inboundPoolSize;
+        this.outboundPoolSize = outboundPoolSize;
+        this.outboundQueueCapacity = outboundQueueCapacity;
+        this.sendTimeLimit = sendTimeLimit;
+        this.sendBufferSizeLimit = sendBufferSizeLimit;
+        this.messageSizeLimit = messageSizeLimit;
+    }
+
     @Override
     public void configureMessageBroker(MessageBrokerRegistry config) {
-        config.enableSimpleBroker("/topic");
+        config.enableSimpleBroker("/topic", "/queue");
         config.setApplicationDestinationPrefixes("/app");
+        config.setUserDestinationPrefix("/user");
     }
 
     @Override
@@ -22,4 +55,29 @@ public class WebSocketConfig implements WebSocketMessageBrokerConfigurer {
                 .setAllowedOriginPatterns("*")
                 .withSockJS();
     }
-}
\ No newline at end of file
+
+    @Override
+    public void configureClientInboundChannel(ChannelRegistration registration) {
+        registration.taskExecutor()
+                .corePoolSize(inboundPoolSize)
+                .maxPoolSize(inboundPoolSize);
+        registration.interceptors(new RoleTopicSubscriptionInterceptor());
+    }
+
+    @Override
+    public void configureClientOutboundChannel(ChannelRegistration registration) {
+        registration.taskExecutor()
+                .corePoolSize(outboundPoolSize)
+                .maxPoolSize(outboundPoolSize)
+                .queueCapacity(outboundQueueCapacity);
+    }
+
+    // A slow client is disconnected once its pending sends exceed these limits,
+    // instead of holding an outbound thread
+    @Override
+    public void configureWebSocketTransport(WebSocketTransportRegistration registration) {
+        registration.setSendTimeLimit((int) sendTimeLimit.toMillis())
+                .setSendBufferSizeLimit(sendBufferSizeLimit)
+                .setMessageSizeLimit(messageSizeLimit);
+    }
+}
@@ -0,0 +1,49 @@
+package com.quadrah.sims.config;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.stereotype.Component;
+import org.springframework.web.socket.messaging.SessionConnectedEvent;
+import org.springframework.web.socket.messaging.SessionDisconnectEvent;
+
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+
+// STOMP session count and channel queue depths under sims.websocket.*
+@Component
+public class WebSocketMetrics {
+
+    private final Set<String> sessions = ConcurrentHashMap.newKeySet();
+
+    public WebSocketMetrics(MeterRegistry meterRegistry,
+                            @Qualifier("clientInboundChannelExecutor") Executor inboundExecutor,
+                            @Qualifier("clientOutboundChannelExecutor") Executor outboundExecutor) {
+        meterRegistry.gauge("sims.websocket.sessions", sessions, Set::size);
+        registerQueueGauge(meterRegistry, "inbound", inboundExecutor);
+        registerQueueGauge(meterRegistry, "outbound", outboundExecutor);
+    }
+
+    @EventListener
+    public void onConnected(SessionConnectedEvent event) {
+        String sessionId = (String) event.getMessage().getHeaders().get("simpSessionId");
+        if (sessionId != null) {
+            sessions.add(sessionId);
+        }
+    }
+
+    @EventListener
+    public void onDisconnect(SessionDisconnectEvent event) {
+        sessions.remove(event.getSessionId());
+    }
+
+    private void registerQueueGauge(MeterRegistry meterRegistry, String channel, Executor executor) {
+        if (executor instanceof ThreadPoolTaskExecutor pool) {
+            meterRegistry.gauge("sims.websocket.channel.queue", Tags.of("channel", channel),
+                    pool, ThreadPoolTaskExecutor::getQueueSize);
+        }
+    }
+}
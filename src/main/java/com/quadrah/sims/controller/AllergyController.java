@@ -1,7 +1,7 @@
 package com.quadrah.sims.controller;
 
+import com.quadrah.sims.dto.StudentSummary;
 import com.quadrah.sims.model.Allergy;
-import com.quadrah.sims.model.Student;
 import com.quadrah.sims.service.AllergyService;
 import jakarta.validation.Valid;
 import org.springframework.http.HttpStatus;
@@ -57,8 +57,8 @@ public class AllergyController {
     }
 
     @GetMapping("/students-with-allergy")
-    public ResponseEntity<List<Student>> getStudentsWithAllergy(@RequestParam String allergyType) {
-        List<Student> students = allergyService.getStudentsWithAllergy(allergyType);
+    public ResponseEntity<List<StudentSummary>> getStudentsWithAllergy(@RequestParam String allergyType) {
+        List<StudentSummary> students = allergyService.getStudentsWithAllergy(allergyType);
         return ResponseEntity.ok(students);
     }
 }
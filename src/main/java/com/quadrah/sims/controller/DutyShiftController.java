@@ -0,0 +1,50 @@
+package com.quadrah.sims.controller;
+
+import com.quadrah.sims.model.DutyShift;
+import com.quadrah.sims.service.DutyShiftService;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.*;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@RestController
+@RequestMapping("/api/duty-shifts")
+public class DutyShiftController {
+
+    private final DutyShiftService dutyShiftService;
+
+    public DutyShiftController(DutyShiftService dutyShiftService) {
+        this.dutyShiftService = dutyShiftService;
+    }
+
+    @GetMapping
+    @PreAuthorize("hasRole('ADMIN') or hasRole('NURSE')")
+    public ResponseEntity<List<DutyShift>> getShifts(
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to) {
+        return ResponseEntity.ok(dutyShiftService.getShifts(from, to));
+    }
+
+    @GetMapping("/user/{userId}")
+    @PreAuthorize("hasRole('ADMIN') or hasRole('NURSE')")
+    public ResponseEntity<List<DutyShift>> getShiftsForUser(@PathVariable Long userId) {
+        return ResponseEntity.ok(dutyShiftService.getShiftsForUser(userId));
+    }
+
+    @PostMapping
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<DutyShift> createShift(@RequestBody DutyShift shift) {
+        return ResponseEntity.status(HttpStatus.CREATED).body(dutyShiftService.createShift(shift));
+    }
+
+    @DeleteMapping("/{id}")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<Void> deleteShift(@PathVariable Long id) {
+        dutyShiftService.deleteShift(id);
+        return ResponseEntity.noContent().build();
+    }
+}
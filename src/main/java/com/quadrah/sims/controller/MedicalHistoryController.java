@@ -1,7 +1,7 @@
 package com.quadrah.sims.controller;
 
+import com.quadrah.sims.dto.StudentSummary;
 import com.quadrah.sims.model.MedicalHistory;
-import com.quadrah.sims.model.Student;
 import com.quadrah.sims.service.MedicalHistoryService;
 import jakarta.validation.Valid;
 import org.springframework.http.HttpStatus;
@@ -64,8 +64,8 @@ public class MedicalHistoryController {
 
     @GetMapping("/students-with-condition")
     @PreAuthorize("hasRole('NURSE') or hasRole('ADMIN')")
-    public ResponseEntity<List<Student>> getStudentsWithCondition(@RequestParam String conditionName) {
-        List<Student> students = medicalHistoryService.getStudentsWithCondition(conditionName);
+    public ResponseEntity<List<StudentSummary>> getStudentsWithCondition(@RequestParam String conditionName) {
+        List<StudentSummary> students = medicalHistoryService.getStudentsWithCondition(conditionName);
         return ResponseEntity.ok(students);
     }
 }
\ No newline at end of file
@@ -1,12 +1,22 @@
 package com.quadrah.sims.controller;
 
 import com.quadrah.sims.dto.NotificationDTO;
+import com.quadrah.sims.dto.NotificationFeedPage;
+import com.quadrah.sims.model.BroadcastNotification;
+import com.quadrah.sims.model.Notification;
+import com.quadrah.sims.model.NotificationPreference;
+import com.quadrah.sims.service.BroadcastNotificationService;
+import com.quadrah.sims.service.NotificationPreferenceService;
 import com.quadrah.sims.service.NotificationService;
+import com.quadrah.sims.service.NotificationStream;
 import com.quadrah.sims.service.UserAccountService;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
 import java.util.List;
 import java.util.Map;
@@ -19,11 +29,20 @@ public class NotificationController {
 
     private final NotificationService notificationService;
     private final UserAccountService userAccountService; // Keep UserAccountService
+    private final BroadcastNotificationService broadcastService;
+    private final NotificationStream notificationStream;
+    private final NotificationPreferenceService preferenceService;
 
     public NotificationController(NotificationService notificationService,
-                                  UserAccountService userAccountService) {
+                                  UserAccountService userAccountService,
+                                  BroadcastNotificationService broadcastService,
+                                  NotificationStream notificationStream,
+                                  NotificationPreferenceService preferenceService) {
         this.notificationService = notificationService;
         this.userAccountService = userAccountService;
+        this.broadcastService = broadcastService;
+        this.notificationStream = notificationStream;
+        this.preferenceService = preferenceService;
     }
 
     @GetMapping
@@ -32,10 +51,10 @@ public class NotificationController {
             logger.info("Fetching notifications for current user");
 
             // Use UserAccountService to get current user
-            var currentUser = userAccountService.getCurrentUser();
-            logger.info("Current user: {} (ID: {})", currentUser.getUsername(), currentUser.getId());
+            var currentUser = userAccountService.getCurrentUserSnapshot();
+            logger.info("Current user: {} (ID: {})", currentUser.username(), currentUser.id());
 
-            List<NotificationDTO> notifications = notificationService.getUserNotifications(currentUser.getId());
+            List<NotificationDTO> notifications = notificationService.getUserNotifications(currentUser.id());
             logger.info("Found {} notifications", notifications.size());
 
             return ResponseEntity.ok(notifications);
@@ -45,11 +64,54 @@ public class NotificationController {
         }
     }
 
+    @GetMapping("/feed")
+    public ResponseEntity<?> getNotificationFeed(@RequestParam(required = false) String cursor,
+                                                 @RequestParam(required = false) Integer limit,
+                                                 @RequestParam(required = false) Notification.NotificationType type,
+                                                 @RequestParam(required = false) Notification.NotificationStatus status) {
+        try {
+            var currentUser = userAccountService.getCurrentUserSnapshot();
+            NotificationFeedPage page = notificationService.getNotificationFeed(currentUser.id(), cursor, limit, type, status);
+            return ResponseEntity.ok(page);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(createErrorResponse(e.getMessage()));
+        } catch (Exception e) {
+            logger.error("Error fetching notification feed", e);
+            return ResponseEntity.status(500).body(createErrorResponse("Failed to fetch notification feed: " + e.getMessage()));
+        }
+    }
+
+    @GetMapping("/history")
+    public ResponseEntity<?> getNotificationHistory(@RequestParam(required = false) String cursor,
+                                                    @RequestParam(required = false) Integer limit) {
+        try {
+            var currentUser = userAccountService.getCurrentUserSnapshot();
+            NotificationFeedPage page = notificationService.getNotificationHistory(currentUser.id(), cursor, limit);
+            return ResponseEntity.ok(page);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(createErrorResponse(e.getMessage()));
+        } catch (Exception e) {
+            logger.error("Error fetching notification history", e);
+            return ResponseEntity.status(500).body(createErrorResponse("Failed to fetch notification history: " + e.getMessage()));
+        }
+    }
+
+    // SSE alternative to the STOMP endpoint; reconnecting clients send Last-Event-ID to replay
+    @GetMapping(value = "/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter streamNotifications(@RequestHeader(value = "Last-Event-ID", required = false) String lastEventId) {
+        var currentUser = userAccountService.getCurrentUserSnapshot();
+        Long userId = currentUser.id();
+        return notificationStream.subscribe(userId, currentUser.role(), lastEventId, () -> Map.of(
+                "notifications", notificationService.getUnreadUserNotifications(userId),
+                "unreadCount", notificationService.getUnreadNotificationCount(userId)
+        ));
+    }
+
     @GetMapping("/unread")
     public ResponseEntity<?> getUnreadNotifications() {
         try {
-            var currentUser = userAccountService.getCurrentUser();
-            List<NotificationDTO> notifications = notificationService.getUnreadUserNotifications(currentUser.getId());
+            var currentUser = userAccountService.getCurrentUserSnapshot();
+            List<NotificationDTO> notifications = notificationService.getUnreadUserNotifications(currentUser.id());
             return ResponseEntity.ok(notifications);
         } catch (Exception e) {
             logger.error("Error fetching unread notifications", e);
@@ -60,8 +122,8 @@ public class NotificationController {
     @GetMapping("/unread-count")
     public ResponseEntity<?> getUnreadNotificationCount() {
         try {
-            var currentUser = userAccountService.getCurrentUser();
-            long count = notificationService.getUnreadNotificationCount(currentUser.getId());
+            var currentUser = userAccountService.getCurrentUserSnapshot();
+            long count = notificationService.getUnreadNotificationCount(currentUser.id());
             return ResponseEntity.ok(count);
         } catch (Exception e) {
             logger.error("Error fetching unread count", e);
@@ -72,8 +134,8 @@ public class NotificationController {
     @PostMapping("/{id}/read")
     public ResponseEntity<?> markAsRead(@PathVariable Long id) {
         try {
-            var currentUser = userAccountService.getCurrentUser();
-            notificationService.markAsRead(id, currentUser.getId());
+            var currentUser = userAccountService.getCurrentUserSnapshot();
+            notificationService.markAsRead(id, currentUser.id());
             return ResponseEntity.ok().build();
         } catch (Exception e) {
             logger.error("Error marking notification as read", e);
@@ -84,8 +146,8 @@ public class NotificationController {
     @PostMapping("/read-all")
     public ResponseEntity<?> markAllAsRead() {
         try {
-            var currentUser = userAccountService.getCurrentUser();
-            notificationService.markAllAsRead(currentUser.getId());
+            var currentUser = userAccountService.getCurrentUserSnapshot();
+            notificationService.markAllAsRead(currentUser.id());
             return ResponseEntity.ok().build();
         } catch (Exception e) {
             logger.error("Error marking all notifications as read", e);
@@ -93,6 +155,56 @@ public class NotificationController {
         }
     }
 
+    @PostMapping("/broadcasts")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<?> createBroadcast(@RequestBody BroadcastNotification broadcast) {
+        try {
+            var currentUser = userAccountService.getCurrentUserSnapshot();
+            return ResponseEntity.ok(broadcastService.createBroadcast(broadcast, currentUser.id()));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(createErrorResponse(e.getMessage()));
+        } catch (Exception e) {
+            logger.error("Error creating broadcast", e);
+            return ResponseEntity.status(500).body(createErrorResponse("Failed to create broadcast: " + e.getMessage()));
+        }
+    }
+
+    @PostMapping("/broadcasts/{id}/read")
+    public ResponseEntity<?> markBroadcastAsRead(@PathVariable Long id) {
+        try {
+            var currentUser = userAccountService.getCurrentUserSnapshot();
+            broadcastService.markRead(id, currentUser.id(), currentUser.role());
+            return ResponseEntity.ok().build();
+        } catch (Exception e) {
+            logger.error("Error marking broadcast as read", e);
+            return ResponseEntity.status(500).body(createErrorResponse("Failed to mark broadcast as read: " + e.getMessage()));
+        }
+    }
+
+    @GetMapping("/preferences")
+    public ResponseEntity<?> getPreferences() {
+        try {
+            var currentUser = userAccountService.getCurrentUserSnapshot();
+            return ResponseEntity.ok(preferenceService.getPreference(currentUser.id()));
+        } catch (Exception e) {
+            logger.error("Error fetching notification preferences", e);
+            return ResponseEntity.status(500).body(createErrorResponse("Failed to fetch notification preferences: " + e.getMessage()));
+        }
+    }
+
+    @PutMapping("/preferences")
+    public ResponseEntity<?> updatePreferences(@RequestBody NotificationPreference preference) {
+        try {
+            var currentUser = userAccountService.getCurrentUserSnapshot();
+            return ResponseEntity.ok(preferenceService.updatePreference(currentUser.id(), preference));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(createErrorResponse(e.getMessage()));
+        } catch (Exception e) {
+            logger.error("Error updating notification preferences", e);
+            return ResponseEntity.status(500).body(createErrorResponse("Failed to update notification preferences: " + e.getMessage()));
+        }
+    }
+
     private Map<String, String> createErrorResponse(String message) {
         return Map.of("error", message);
     }
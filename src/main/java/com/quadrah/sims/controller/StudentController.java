@@ -1,17 +1,31 @@
 package com.quadrah.sims.controller;
 
+import com.quadrah.sims.dto.StudentHealthProfile;
+import com.quadrah.sims.dto.StudentImportReport;
+import com.quadrah.sims.dto.StudentSummary;
 import com.quadrah.sims.model.Student;
+import com.quadrah.sims.service.StudentExportService;
+import com.quadrah.sims.service.StudentFileFormat;
+import com.quadrah.sims.service.StudentHealthProfileService;
+import com.quadrah.sims.service.StudentImportService;
 import com.quadrah.sims.service.StudentService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import io.swagger.v3.oas.annotations.responses.ApiResponses;
 import io.swagger.v3.oas.annotations.security.SecurityRequirement;
 import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.servlet.http.HttpServletRequest;
 import jakarta.validation.Valid;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.io.IOException;
+import java.time.LocalDate;
 import java.util.List;
 import java.util.Optional;
 
@@ -22,14 +36,22 @@ import java.util.Optional;
 public class StudentController {
 
     private final StudentService studentService;
+    private final StudentImportService studentImportService;
+    private final StudentExportService studentExportService;
+    private final StudentHealthProfileService healthProfileService;
 
-    public StudentController(StudentService studentService) {
+    public StudentController(StudentService studentService, StudentImportService studentImportService,
+                             StudentExportService studentExportService,
+                             StudentHealthProfileService healthProfileService) {
         this.studentService = studentService;
+        this.studentImportService = studentImportService;
+        this.studentExportService = studentExportService;
+        this.healthProfileService = healthProfileService;
     }
 
     @Operation(
             summary = "Get all students",
-            description = "Retrieve a list of all students with their basic information"
+            description = "Retrieve a summary of every student, without health records"
     )
     @ApiResponses({
             @ApiResponse(responseCode = "200", description = "Successfully retrieved students"),
@@ -37,8 +59,8 @@ public class StudentController {
             @ApiResponse(responseCode = "403", description = "Forbidden - insufficient permissions")
     })
     @GetMapping
-    public ResponseEntity<List<Student>> getAllStudents() {
-        List<Student> students = studentService.getAllStudents();
+    public ResponseEntity<List<StudentSummary>> getAllStudents() {
+        List<StudentSummary> students = studentService.getAllStudents();
         return ResponseEntity.ok(students);
     }
 
@@ -58,6 +80,23 @@ public class StudentController {
                 .orElse(ResponseEntity.notFound().build());
     }
 
+    @Operation(
+            summary = "Get a student's health profile",
+            description = "The student's chart in one response: details, allergies, active conditions, emergency " +
+                    "contacts, recent visits and medication administrations"
+    )
+    @ApiResponses({
+            @ApiResponse(responseCode = "200", description = "Health profile found"),
+            @ApiResponse(responseCode = "404", description = "Student not found")
+    })
+    @GetMapping("/{id}/health-profile")
+    @PreAuthorize("hasRole('ADMIN') or hasRole('NURSE')")
+    public ResponseEntity<StudentHealthProfile> getHealthProfile(@PathVariable Long id) {
+        return healthProfileService.getHealthProfile(id)
+                .map(ResponseEntity::ok)
+                .orElse(ResponseEntity.notFound().build());
+    }
+
     @GetMapping("/student-id/{studentId}")
     public ResponseEntity<Student> getStudentByStudentId(@PathVariable String studentId) {
         Optional<Student> student = studentService.getStudentByStudentId(studentId);
@@ -70,28 +109,30 @@ public class StudentController {
             description = "Retrieve all students in a specific grade level"
     )
     @GetMapping("/grade/{gradeLevel}")
-    public ResponseEntity<List<Student>> getStudentsByGradeLevel(@PathVariable String gradeLevel) {
-        List<Student> students = studentService.getStudentsByGradeLevel(gradeLevel);
+    public ResponseEntity<List<StudentSummary>> getStudentsByGradeLevel(@PathVariable String gradeLevel) {
+        List<StudentSummary> students = studentService.getStudentsByGradeLevel(gradeLevel);
         return ResponseEntity.ok(students);
     }
 
     @GetMapping("/homeroom/{homeroom}")
-    public ResponseEntity<List<Student>> getStudentsByHomeroom(@PathVariable String homeroom) {
-        List<Student> students = studentService.getStudentsByHomeroom(homeroom);
+    public ResponseEntity<List<StudentSummary>> getStudentsByHomeroom(@PathVariable String homeroom) {
+        List<StudentSummary> students = studentService.getStudentsByHomeroom(homeroom);
         return ResponseEntity.ok(students);
     }
 
     @Operation(
-            summary = "Search students by name",
-            description = "Search for students by first name or last name (case-insensitive)"
+            summary = "Search students by name or student ID",
+            description = "Ranked search over first name, last name and student ID (case- and accent-insensitive). " +
+                    "Every word must match; results are limited"
     )
     @ApiResponses({
             @ApiResponse(responseCode = "200", description = "Search completed successfully"),
             @ApiResponse(responseCode = "400", description = "Invalid search parameter")
     })
     @GetMapping("/search")
-    public ResponseEntity<List<Student>> searchStudents(@RequestParam String name) {
-        List<Student> students = studentService.searchStudentsByName(name);
+    public ResponseEntity<List<StudentSummary>> searchStudents(@RequestParam String name,
+                                                               @RequestParam(required = false) Integer limit) {
+        List<StudentSummary> students = studentService.searchStudents(name, limit);
         return ResponseEntity.ok(students);
     }
 
@@ -110,6 +151,51 @@ public class StudentController {
         return ResponseEntity.status(HttpStatus.CREATED).body(createdStudent);
     }
 
+    @Operation(
+            summary = "Bulk import students",
+            description = "Streams a CSV (text/csv, header row required) or NDJSON (application/x-ndjson) upload and " +
+                    "upserts students by student ID in batches. Empty or missing optional fields keep the stored value. " +
+                    "Invalid rows are skipped and listed in the report"
+    )
+    @ApiResponses({
+            @ApiResponse(responseCode = "200", description = "Import finished; see the report for rejected rows"),
+            @ApiResponse(responseCode = "400", description = "Unsupported content type or missing CSV columns")
+    })
+    @PostMapping(value = "/import", consumes = {"text/csv", "application/x-ndjson"})
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<StudentImportReport> importStudents(
+            HttpServletRequest request,
+            @RequestParam(defaultValue = "true") boolean updateExisting) throws IOException {
+        StudentFileFormat format = StudentFileFormat.fromContentType(request.getContentType());
+        StudentImportReport report = studentImportService.importStudents(request.getInputStream(), format, updateExisting);
+        return ResponseEntity.ok(report);
+    }
+
+    @Operation(
+            summary = "Export students",
+            description = "Streams the roster as CSV or NDJSON, optionally filtered by grade level and homeroom. " +
+                    "The CSV columns match the import format; re-importing leaves columns the export omits, such as " +
+                    "special notes, unchanged"
+    )
+    @ApiResponses({
+            @ApiResponse(responseCode = "200", description = "Export streamed"),
+            @ApiResponse(responseCode = "503", description = "Too many exports in progress; retry later")
+    })
+    @GetMapping("/export")
+    @PreAuthorize("hasRole('ADMIN') or hasRole('NURSE')")
+    public ResponseEntity<StreamingResponseBody> exportStudents(
+            @RequestParam(defaultValue = "csv") String format,
+            @RequestParam(required = false) String gradeLevel,
+            @RequestParam(required = false) String homeroom,
+            HttpServletRequest request) {
+        StudentFileFormat fileFormat = StudentFileFormat.fromName(format);
+        String filename = "students-" + LocalDate.now() + "." + fileFormat.getExtension();
+        return ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType(fileFormat.getContentType() + ";charset=UTF-8"))
+                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"" + filename + "\"")
+                .body(studentExportService.export(fileFormat, gradeLevel, homeroom, request));
+    }
+
     @PutMapping("/{id}")
     public ResponseEntity<Student> updateStudent(@PathVariable Long id, @Valid @RequestBody Student studentDetails) {
         Student updatedStudent = studentService.updateStudent(id, studentDetails);
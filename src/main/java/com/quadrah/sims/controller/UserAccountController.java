@@ -1,7 +1,9 @@
 package com.quadrah.sims.controller;
 
+import com.quadrah.sims.model.KeycloakProvisioningTask;
 import com.quadrah.sims.model.UserAccount;
 import com.quadrah.sims.service.KeycloakService;
+import com.quadrah.sims.service.KeycloakUserSyncService;
 import com.quadrah.sims.service.UserAccountService;
 import jakarta.validation.Valid;
 import org.springframework.http.HttpStatus;
@@ -9,6 +11,7 @@ import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
 
+import java.net.URI;
 import java.util.List;
 import java.util.Optional;
 
@@ -18,10 +21,13 @@ public class UserAccountController {
 
     private final UserAccountService userService;
     private final KeycloakService keycloakService;
+    private final KeycloakUserSyncService keycloakUserSyncService;
 
-    public UserAccountController(UserAccountService userService, KeycloakService keycloakService) {
+    public UserAccountController(UserAccountService userService, KeycloakService keycloakService,
+                                 KeycloakUserSyncService keycloakUserSyncService) {
         this.userService = userService;
         this.keycloakService = keycloakService;
+        this.keycloakUserSyncService = keycloakUserSyncService;
     }
 
     @GetMapping
@@ -91,6 +97,14 @@ public class UserAccountController {
         return ResponseEntity.status(HttpStatus.CREATED).body(createdUser);
     }
 
+    @GetMapping("/{id}/provisioning")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<KeycloakProvisioningTask> getProvisioningStatus(@PathVariable Long id) {
+        Optional<KeycloakProvisioningTask> task = userService.getProvisioningStatus(id);
+        return task.map(ResponseEntity::ok)
+                .orElse(ResponseEntity.notFound().build());
+    }
+
     @PostMapping("/sync-keycloak")
     public ResponseEntity<UserAccount> syncWithKeycloak(@RequestBody SyncUserRequest syncRequest) {
         // This endpoint syncs a local user with Keycloak user data
@@ -105,6 +119,25 @@ public class UserAccountController {
         return ResponseEntity.status(HttpStatus.CREATED).body(syncedUser);
     }
 
+    @PostMapping("/sync-realm")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<KeycloakUserSyncService.SyncJob> syncRealmUsers() {
+        // Bulk provisioning of every realm user, e.g. when onboarding a district. Runs in the
+        // background; poll the returned location until the job has finished
+        KeycloakUserSyncService.SyncJob job = keycloakUserSyncService.startSync();
+        return ResponseEntity.accepted()
+                .location(URI.create("/api/users/sync-realm/" + job.id()))
+                .body(job);
+    }
+
+    @GetMapping("/sync-realm/{jobId}")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<KeycloakUserSyncService.SyncJob> getRealmSyncJob(@PathVariable String jobId) {
+        Optional<KeycloakUserSyncService.SyncJob> job = keycloakUserSyncService.getJob(jobId);
+        return job.map(ResponseEntity::ok)
+                .orElse(ResponseEntity.notFound().build());
+    }
+
     @PutMapping("/{id}")
     @PreAuthorize("hasRole('ADMIN') or @keycloakService.isCurrentUser(#id)")
     public ResponseEntity<UserAccount> updateUser(@PathVariable Long id, @Valid @RequestBody UserAccount userDetails) {
@@ -1,5 +1,7 @@
 package com.quadrah.sims.dto;
 
+import com.quadrah.sims.model.ArchivedNotification;
+import com.quadrah.sims.model.BroadcastNotification;
 import com.quadrah.sims.model.Notification;
 import io.swagger.v3.oas.annotations.media.Schema;
 import java.time.LocalDateTime;
@@ -34,11 +36,25 @@ public class NotificationDTO {
     @Schema(description = "Related entity ID", example = "123")
     private Long relatedEntityId;
 
+    @Schema(description = "Number of events this notification stands for (repeats are coalesced)", example = "1")
+    private Integer occurrenceCount;
+
+    @Schema(description = "Time of the latest coalesced repeat (null if none); createdAt is the first occurrence")
+    private LocalDateTime lastOccurredAt;
+
+    @Schema(description = "True for a shared broadcast; mark it read via /api/notifications/broadcasts/{id}/read")
+    private boolean broadcast;
+
     @Schema(description = "Recipient user information")
     private UserDTO recipient;
 
     // Constructor from Entity
     public NotificationDTO(Notification notification) {
+        this(notification, notification.getRecipient() != null ? new UserDTO(notification.getRecipient()) : null);
+    }
+
+    // Constructor for fan-out, where the recipient is already known and must not be loaded again
+    public NotificationDTO(Notification notification, UserDTO recipient) {
         this.id = notification.getId();
         this.title = notification.getTitle();
         this.message = notification.getMessage();
@@ -48,11 +64,39 @@ public class NotificationDTO {
         this.readAt = notification.getReadAt();
         this.relatedEntityType = notification.getRelatedEntityType();
         this.relatedEntityId = notification.getRelatedEntityId();
+        this.occurrenceCount = notification.getOccurrenceCount();
+        this.lastOccurredAt = notification.getLastOccurredAt();
+
+        // Recipient is passed as a DTO to avoid proxy issues
+        this.recipient = recipient;
+    }
 
-        // Convert recipient to DTO to avoid proxy issues
-        if (notification.getRecipient() != null) {
-            this.recipient = new UserDTO(notification.getRecipient());
-        }
+    // Constructor for the history endpoint; archived rows belong to the caller, so no recipient
+    public NotificationDTO(ArchivedNotification notification) {
+        this.id = notification.getId();
+        this.title = notification.getTitle();
+        this.message = notification.getMessage();
+        this.type = notification.getType().name();
+        this.status = notification.getStatus().name();
+        this.createdAt = notification.getCreatedAt();
+        this.readAt = notification.getReadAt();
+        this.relatedEntityType = notification.getRelatedEntityType();
+        this.relatedEntityId = notification.getRelatedEntityId();
+        this.occurrenceCount = notification.getOccurrenceCount();
+        this.lastOccurredAt = notification.getLastOccurredAt();
+    }
+
+    // Constructor for a broadcast as seen by one user
+    public NotificationDTO(BroadcastNotification notification, LocalDateTime readAt) {
+        this.id = notification.getId();
+        this.title = notification.getTitle();
+        this.message = notification.getMessage();
+        this.type = notification.getType().name();
+        this.status = readAt != null ? Notification.NotificationStatus.READ.name() : Notification.NotificationStatus.UNREAD.name();
+        this.createdAt = notification.getCreatedAt();
+        this.readAt = readAt;
+        this.occurrenceCount = 1;
+        this.broadcast = true;
     }
 
     // Getters and setters
@@ -74,6 +118,12 @@ public class NotificationDTO {
     public void setRelatedEntityType(String relatedEntityType) { this.relatedEntityType = relatedEntityType; }
     public Long getRelatedEntityId() { return relatedEntityId; }
     public void setRelatedEntityId(Long relatedEntityId) { this.relatedEntityId = relatedEntityId; }
+    public Integer getOccurrenceCount() { return occurrenceCount; }
+    public void setOccurrenceCount(Integer occurrenceCount) { this.occurrenceCount = occurrenceCount; }
+    public LocalDateTime getLastOccurredAt() { return lastOccurredAt; }
+    public void setLastOccurredAt(LocalDateTime lastOccurredAt) { this.lastOccurredAt = lastOccurredAt; }
+    public boolean isBroadcast() { return broadcast; }
+    public void setBroadcast(boolean broadcast) { this.broadcast = broadcast; }
     public UserDTO getRecipient() { return recipient; }
     public void setRecipient(UserDTO recipient) { this.recipient = recipient; }
 }
\ No newline at end of file
@@ -0,0 +1,26 @@
+package com.quadrah.sims.dto;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import java.util.List;
+
+@Schema(description = "One page of the current user's notification feed, newest first")
+public class NotificationFeedPage {
+
+    @Schema(description = "Notifications on this page")
+    private List<NotificationDTO> items;
+
+    @Schema(description = "Cursor for the next (older) page; null when there are no more notifications",
+            example = "MjAyNS0wMS0xNVQxMDozMDowMHwxMjM")
+    private String nextCursor;
+
+    public NotificationFeedPage(List<NotificationDTO> items, String nextCursor) {
+        this.items = items;
+        this.nextCursor = nextCursor;
+    }
+
+    // Getters and setters
+    public List<NotificationDTO> getItems() { return items; }
+    public void setItems(List<NotificationDTO> items) { this.items = items; }
+    public String getNextCursor() { return nextCursor; }
+    public void setNextCursor(String nextCursor) { this.nextCursor = nextCursor; }
+}
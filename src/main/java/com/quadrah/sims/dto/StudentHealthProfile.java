@@ -0,0 +1,144 @@
+package com.quadrah.sims.dto;
+
+import com.quadrah.sims.model.Allergy;
+import com.quadrah.sims.model.EmergencyContact;
+import com.quadrah.sims.model.MedicalHistory;
+import com.quadrah.sims.model.MedicationAdministration;
+import com.quadrah.sims.model.StudentVisit;
+import io.swagger.v3.oas.annotations.media.Schema;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+// Everything the chart screen shows, assembled in one response. Allergies, histories and contacts
+// are detached entities with only scalar fields serialized; visits and administrations are
+// flattened here because their entities carry lazy associations.
+@Schema(description = "A student's chart: details, allergies, active conditions, contacts, recent visits and medications")
+public class StudentHealthProfile {
+
+    private StudentSummary student;
+    private String specialNotes;
+    private List<Allergy> allergies;
+    private List<MedicalHistory> medicalHistories;
+    private List<EmergencyContact> emergencyContacts;
+
+    @Schema(description = "Most recent visits, newest first")
+    private List<VisitSummary> recentVisits;
+
+    @Schema(description = "Most recent medication administrations, newest first")
+    private List<AdministrationSummary> medicationAdministrations;
+
+    @Schema(description = "When this profile was read from the database; it may be served from cache afterwards")
+    private LocalDateTime loadedAt;
+
+    public StudentHealthProfile(StudentSummary student, String specialNotes, List<Allergy> allergies,
+                                List<MedicalHistory> medicalHistories, List<EmergencyContact> emergencyContacts,
+                                List<VisitSummary> recentVisits, List<AdministrationSummary> medicationAdministrations,
+                                LocalDateTime loadedAt) {
+        this.student = student;
+        this.specialNotes = specialNotes;
+        this.allergies = allergies;
+        this.medicalHistories = medicalHistories;
+        this.emergencyContacts = emergencyContacts;
+        this.recentVisits = recentVisits;
+        this.medicationAdministrations = medicationAdministrations;
+        this.loadedAt = loadedAt;
+    }
+
+    public static class VisitSummary {
+        private Long id;
+        private LocalDateTime visitDate;
+        private String reason;
+        private String symptoms;
+        private String finalAssessment;
+        private StudentVisit.DispositionType disposition;
+        private Boolean emergencyFlag;
+        private String nurseName;
+
+        // Expects the nurse to be fetched with the visit
+        public VisitSummary(StudentVisit visit) {
+            this.id = visit.getId();
+            this.visitDate = visit.getVisitDate();
+            this.reason = visit.getReason();
+            this.symptoms = visit.getSymptoms();
+            this.finalAssessment = visit.getFinalAssessment();
+            this.disposition = visit.getDisposition();
+            this.emergencyFlag = visit.getEmergencyFlag();
+            this.nurseName = visit.getNurse() == null ? null
+                    : visit.getNurse().getFirstName() + " " + visit.getNurse().getLastName();
+        }
+
+        // Getters and setters
+        public Long getId() { return id; }
+        public void setId(Long id) { this.id = id; }
+        public LocalDateTime getVisitDate() { return visitDate; }
+        public void setVisitDate(LocalDateTime visitDate) { this.visitDate = visitDate; }
+        public String getReason() { return reason; }
+        public void setReason(String reason) { this.reason = reason; }
+        public String getSymptoms() { return symptoms; }
+        public void setSymptoms(String symptoms) { this.symptoms = symptoms; }
+        public String getFinalAssessment() { return finalAssessment; }
+        public void setFinalAssessment(String finalAssessment) { this.finalAssessment = finalAssessment; }
+        public StudentVisit.DispositionType getDisposition() { return disposition; }
+        public void setDisposition(StudentVisit.DispositionType disposition) { this.disposition = disposition; }
+        public Boolean getEmergencyFlag() { return emergencyFlag; }
+        public void setEmergencyFlag(Boolean emergencyFlag) { this.emergencyFlag = emergencyFlag; }
+        public String getNurseName() { return nurseName; }
+        public void setNurseName(String nurseName) { this.nurseName = nurseName; }
+    }
+
+    public static class AdministrationSummary {
+        private Long id;
+        private Long visitId;
+        private String medicationName;
+        private String dosage;
+        private LocalDateTime administrationTime;
+        private String administeredBy;
+        private String notes;
+
+        public AdministrationSummary(MedicationAdministration administration) {
+            this.id = administration.getId();
+            // Reading the id of a lazy association doesn't initialize it
+            this.visitId = administration.getStudentVisit() == null ? null : administration.getStudentVisit().getId();
+            this.medicationName = administration.getMedicationName();
+            this.dosage = administration.getDosage();
+            this.administrationTime = administration.getAdministrationTime();
+            this.administeredBy = administration.getAdministeredBy();
+            this.notes = administration.getNotes();
+        }
+
+        // Getters and setters
+        public Long getId() { return id; }
+        public void setId(Long id) { this.id = id; }
+        public Long getVisitId() { return visitId; }
+        public void setVisitId(Long visitId) { this.visitId = visitId; }
+        public String getMedicationName() { return medicationName; }
+        public void setMedicationName(String medicationName) { this.medicationName = medicationName; }
+        public String getDosage() { return dosage; }
+        public void setDosage(String dosage) { this.dosage = dosage; }
+        public LocalDateTime getAdministrationTime() { return administrationTime; }
+        public void setAdministrationTime(LocalDateTime administrationTime) { this.administrationTime = administrationTime; }
+        public String getAdministeredBy() { return administeredBy; }
+        public void setAdministeredBy(String administeredBy) { this.administeredBy = administeredBy; }
+        public String getNotes() { return notes; }
+        public void setNotes(String notes) { this.notes = notes; }
+    }
+
+    // Getters and setters
+    public StudentSummary getStudent() { return student; }
+    public void setStudent(StudentSummary student) { this.student = student; }
+    public String getSpecialNotes() { return specialNotes; }
+    public void setSpecialNotes(String specialNotes) { this.specialNotes = specialNotes; }
+    public List<Allergy> getAllergies() { return allergies; }
+    public void setAllergies(List<Allergy> allergies) { this.allergies = allergies; }
+    public List<MedicalHistory> getMedicalHistories() { return medicalHistories; }
+    public void setMedicalHistories(List<MedicalHistory> medicalHistories) { this.medicalHistories = medicalHistories; }
+    public List<EmergencyContact> getEmergencyContacts() { return emergencyContacts; }
+    public void setEmergencyContacts(List<EmergencyContact> emergencyContacts) { this.emergencyContacts = emergencyContacts; }
+    public List<VisitSummary> getRecentVisits() { return recentVisits; }
+    public void setRecentVisits(List<VisitSummary> recentVisits) { this.recentVisits = recentVisits; }
+    public List<AdministrationSummary> getMedicationAdministrations() { return medicationAdministrations; }
+    public void setMedicationAdministrations(List<AdministrationSummary> medicationAdministrations) { this.medicationAdministrations = medicationAdministrations; }
+    public LocalDateTime getLoadedAt() { return loadedAt; }
+    public void setLoadedAt(LocalDateTime loadedAt) { this.loadedAt = loadedAt; }
+}
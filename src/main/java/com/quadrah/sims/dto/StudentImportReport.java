@@ -0,0 +1,67 @@
+package com.quadrah.sims.dto;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import java.util.ArrayList;
+import java.util.List;
+
+@Schema(description = "Outcome of a bulk student import, with the rows that were rejected")
+public class StudentImportReport {
+
+    @Schema(description = "Data rows read from the upload (header and blank lines excluded)")
+    private int totalRows;
+
+    @Schema(description = "Students created")
+    private int inserted;
+
+    @Schema(description = "Existing students whose details were replaced")
+    private int updated;
+
+    @Schema(description = "Rows rejected; see errors")
+    private int failed;
+
+    @Schema(description = "Rejected rows, up to the configured maximum")
+    private List<RowError> errors = new ArrayList<>();
+
+    @Schema(description = "True when more rows failed than are listed in errors")
+    private boolean errorsTruncated;
+
+    private long durationMs;
+
+    @Schema(description = "A rejected row")
+    public static class RowError {
+        @Schema(description = "1-based line number in the upload", example = "42")
+        private long line;
+        private String studentId;
+        private String message;
+
+        public RowError(long line, String studentId, String message) {
+            this.line = line;
+            this.studentId = studentId;
+            this.message = message;
+        }
+
+        // Getters and setters
+        public long getLine() { return line; }
+        public void setLine(long line) { this.line = line; }
+        public String getStudentId() { return studentId; }
+        public void setStudentId(String studentId) { this.studentId = studentId; }
+        public String getMessage() { return message; }
+        public void setMessage(String message) { this.message = message; }
+    }
+
+    // Getters and setters
+    public int getTotalRows() { return totalRows; }
+    public void setTotalRows(int totalRows) { this.totalRows = totalRows; }
+    public int getInserted() { return inserted; }
+    public void setInserted(int inserted) { this.inserted = inserted; }
+    public int getUpdated() { return updated; }
+    public void setUpdated(int updated) { this.updated = updated; }
+    public int getFailed() { return failed; }
+    public void setFailed(int failed) { this.failed = failed; }
+    public List<RowError> getErrors() { return errors; }
+    public void setErrors(List<RowError> errors) { this.errors = errors; }
+    public boolean isErrorsTruncated() { return errorsTruncated; }
+    public void setErrorsTruncated(boolean errorsTruncated) { this.errorsTruncated = errorsTruncated; }
+    public long getDurationMs() { return durationMs; }
+    public void setDurationMs(long durationMs) { this.durationMs = durationMs; }
+}
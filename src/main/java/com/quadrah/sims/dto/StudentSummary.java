@@ -0,0 +1,53 @@
+package com.quadrah.sims.dto;
+
+import com.quadrah.sims.model.Student;
+import io.swagger.v3.oas.annotations.media.Schema;
+import java.time.LocalDate;
+
+// Read model for student lists and searches: scalar columns only, built straight from the query
+@Schema(description = "A student's identifying details, without health records")
+public class StudentSummary {
+    private Long id;
+    private String studentId;
+    private String firstName;
+    private String lastName;
+    private String gradeLevel;
+    private String homeroom;
+    private LocalDate dateOfBirth;
+    private String gender;
+
+    public StudentSummary(Student student) {
+        this(student.getId(), student.getStudentId(), student.getFirstName(), student.getLastName(),
+                student.getGradeLevel(), student.getHomeroom(), student.getDateOfBirth(), student.getGender());
+    }
+
+    public StudentSummary(Long id, String studentId, String firstName, String lastName, String gradeLevel,
+                          String homeroom, LocalDate dateOfBirth, String gender) {
+        this.id = id;
+        this.studentId = studentId;
+        this.firstName = firstName;
+        this.lastName = lastName;
+        this.gradeLevel = gradeLevel;
+        this.homeroom = homeroom;
+        this.dateOfBirth = dateOfBirth;
+        this.gender = gender;
+    }
+
+    // Getters and setters
+    public Long getId() { return id; }
+    public void setId(Long id) { this.id = id; }
+    public String getStudentId() { return studentId; }
+    public void setStudentId(String studentId) { this.studentId = studentId; }
+    public String getFirstName() { return firstName; }
+    public void setFirstName(String firstName) { this.firstName = firstName; }
+    public String getLastName() { return lastName; }
+    public void setLastName(String lastName) { this.lastName = lastName; }
+    public String getGradeLevel() { return gradeLevel; }
+    public void setGradeLevel(String gradeLevel) { this.gradeLevel = gradeLevel; }
+    public String getHomeroom() { return homeroom; }
+    public void setHomeroom(String homeroom) { this.homeroom = homeroom; }
+    public LocalDate getDateOfBirth() { return dateOfBirth; }
+    public void setDateOfBirth(LocalDate dateOfBirth) { this.dateOfBirth = dateOfBirth; }
+    public String getGender() { return gender; }
+    public void setGender(String gender) { this.gender = gender; }
+}
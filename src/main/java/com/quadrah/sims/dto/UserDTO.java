@@ -19,6 +19,15 @@ public class UserDTO {
         this.role = user.getRole().name();
     }
 
+    public UserDTO(Long id, String username, String firstName, String lastName, String email, String role) {
+        this.id = id;
+        this.username = username;
+        this.firstName = firstName;
+        this.lastName = lastName;
+        this.email = email;
+        this.role = role;
+    }
+
     // Getters and setters
     public Long getId() { return id; }
     public void setId(Long id) { this.id = id; }
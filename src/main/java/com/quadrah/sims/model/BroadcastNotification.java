@@ -0,0 +1,67 @@
+package com.quadrah.sims.model;
+
+import jakarta.persistence.*;
+import java.time.LocalDateTime;
+
+// A notification stored once for a whole audience (everyone, or one role). Per-user read state
+// lives in BroadcastReadState, which only has rows for users who have read it.
+@Entity
+@Table(name = "broadcast_notifications", indexes = {
+        @Index(name = "idx_broadcast_notifications_visible", columnList = "visible_until, audience_role")
+})
+public class BroadcastNotification {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(nullable = false)
+    private String title;
+
+    @Column(length = 1000)
+    private String message;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false)
+    private Notification.NotificationType type = Notification.NotificationType.SYSTEM_ALERT;
+
+    // Null means every user
+    @Enumerated(EnumType.STRING)
+    @Column(name = "audience_role")
+    private UserAccount.UserRole audienceRole;
+
+    @Column(name = "created_by")
+    private Long createdBy;
+
+    @Column(name = "created_at", nullable = false)
+    private LocalDateTime createdAt;
+
+    // Hidden from lists and unread counts afterwards
+    @Column(name = "visible_until", nullable = false)
+    private LocalDateTime visibleUntil;
+
+    @PrePersist
+    protected void onCreate() {
+        createdAt = LocalDateTime.now();
+    }
+
+    // Constructors
+    public BroadcastNotification() {}
+
+    // Getters and setters
+    public Long getId() { return id; }
+    public void setId(Long id) { this.id = id; }
+    public String getTitle() { return title; }
+    public void setTitle(String title) { this.title = title; }
+    public String getMessage() { return message; }
+    public void setMessage(String message) { this.message = message; }
+    public Notification.NotificationType getType() { return type; }
+    public void setType(Notification.NotificationType type) { this.type = type; }
+    public UserAccount.UserRole getAudienceRole() { return audienceRole; }
+    public void setAudienceRole(UserAccount.UserRole audienceRole) { this.audienceRole = audienceRole; }
+    public Long getCreatedBy() { return createdBy; }
+    public void setCreatedBy(Long createdBy) { this.createdBy = createdBy; }
+    public LocalDateTime getCreatedAt() { return createdAt; }
+    public void setCreatedAt(LocalDateTime createdAt) { this.createdAt = createdAt; }
+    public LocalDateTime getVisibleUntil() { return visibleUntil; }
+    public void setVisibleUntil(LocalDateTime visibleUntil) { this.visibleUntil = visibleUntil; }
+}
@@ -0,0 +1,61 @@
+package com.quadrah.sims.model;
+
+import jakarta.persistence.*;
+import java.io.Serializable;
+import java.time.LocalDateTime;
+import java.util.Objects;
+
+// Sparse read marker: a row exists only once a user has read a broadcast
+@Entity
+@Table(name = "broadcast_read_states", indexes = {
+        @Index(name = "idx_broadcast_read_states_user", columnList = "user_id, broadcast_id")
+})
+public class BroadcastReadState {
+    @EmbeddedId
+    private Key id;
+
+    @Column(name = "read_at", nullable = false)
+    private LocalDateTime readAt;
+
+    @Embeddable
+    public static class Key implements Serializable {
+        @Column(name = "broadcast_id")
+        private Long broadcastId;
+
+        @Column(name = "user_id")
+        private Long userId;
+
+        public Key() {}
+
+        public Key(Long broadcastId, Long userId) {
+            this.broadcastId = broadcastId;
+            this.userId = userId;
+        }
+
+        public Long getBroadcastId() { return broadcastId; }
+        public void setBroadcastId(Long broadcastId) { this.broadcastId = broadcastId; }
+        public Long getUserId() { return userId; }
+        public void setUserId(Long userId) { this.userId = userId; }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (!(o instanceof Key key)) return false;
+            return Objects.equals(broadcastId, key.broadcastId) && Objects.equals(userId, key.userId);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(broadcastId, userId);
+        }
+    }
+
+    // Constructors
+    public BroadcastReadState() {}
+
+    // Getters and setters
+    public Key getId() { return id; }
+    public void setId(Key id) { this.id = id; }
+    public LocalDateTime getReadAt() { return readAt; }
+    public void setReadAt(LocalDateTime readAt) { this.readAt = readAt; }
+}
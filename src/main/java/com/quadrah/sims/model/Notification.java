@@ -4,7 +4,15 @@ import jakarta.persistence.*;
 import java.time.LocalDateTime;
 
 @Entity
-@Table(name = "notifications")
+@Table(name = "notifications", indexes = {
+        // Keyset feed, with and without a status filter
+        @Index(name = "idx_notifications_user_status_created", columnList = "user_id, status, created_at DESC, id DESC"),
+        @Index(name = "idx_notifications_user_created", columnList = "user_id, created_at DESC, id DESC"),
+        // Archival batches
+        @Index(name = "idx_notifications_status_created", columnList = "status, created_at"),
+        // Coalescing lookups by (type, related entity)
+        @Index(name = "idx_notifications_related", columnList = "related_entity_id, type, status")
+})
 public class Notification {
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
@@ -39,6 +47,14 @@ public class Notification {
 
     private LocalDateTime readAt;
 
+    // How many events this notification stands for; above 1 when repeats were coalesced into it
+    @Column(name = "occurrence_count", nullable = false, columnDefinition = "integer default 1")
+    private Integer occurrenceCount = 1;
+
+    // When the latest coalesced repeat happened; null until the first one. createdAt stays the first occurrence
+    @Column(name = "last_occurred_at")
+    private LocalDateTime lastOccurredAt;
+
     @PrePersist
     protected void onCreate() {
         createdAt = LocalDateTime.now();
@@ -49,7 +65,8 @@ public class Notification {
         DISPOSITION_CHANGE,
         LOW_STOCK,
         SYSTEM_ALERT,
-        STUDENT_CHECKUP
+        STUDENT_CHECKUP,
+        DIGEST
     }
 
     public enum NotificationStatus {
@@ -87,4 +104,8 @@ public class Notification {
     public void setCreatedAt(LocalDateTime createdAt) { this.createdAt = createdAt; }
     public LocalDateTime getReadAt() { return readAt; }
     public void setReadAt(LocalDateTime readAt) { this.readAt = readAt; }
+    public Integer getOccurrenceCount() { return occurrenceCount; }
+    public void setOccurrenceCount(Integer occurrenceCount) { this.occurrenceCount = occurrenceCount; }
+    public LocalDateTime getLastOccurredAt() { return lastOccurredAt; }
+    public void setLastOccurredAt(LocalDateTime lastOccurredAt) { this.lastOccurredAt = lastOccurredAt; }
 }
\ No newline at end of file
@@ -0,0 +1,51 @@
+package com.quadrah.sims.model;
+
+import jakarta.persistence.*;
+import java.time.LocalDateTime;
+
+// Per-user delivery choice for low-priority notification types; users without a row get IMMEDIATE
+@Entity
+@Table(name = "notification_preferences")
+public class NotificationPreference {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "user_id", nullable = false, unique = true)
+    private Long userId;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "delivery_mode", nullable = false)
+    private DeliveryMode deliveryMode = DeliveryMode.IMMEDIATE;
+
+    @Column(name = "digest_interval_minutes", nullable = false)
+    private Integer digestIntervalMinutes = 60;
+
+    @Column(name = "updated_at")
+    private LocalDateTime updatedAt;
+
+    public enum DeliveryMode {
+        IMMEDIATE, DIGEST
+    }
+
+    @PrePersist
+    @PreUpdate
+    protected void onSave() {
+        updatedAt = LocalDateTime.now();
+    }
+
+    // Constructors
+    public NotificationPreference() {}
+
+    // Getters and setters
+    public Long getId() { return id; }
+    public void setId(Long id) { this.id = id; }
+    public Long getUserId() { return userId; }
+    public void setUserId(Long userId) { this.userId = userId; }
+    public DeliveryMode getDeliveryMode() { return deliveryMode; }
+    public void setDeliveryMode(DeliveryMode deliveryMode) { this.deliveryMode = deliveryMode; }
+    public Integer getDigestIntervalMinutes() { return digestIntervalMinutes; }
+    public void setDigestIntervalMinutes(Integer digestIntervalMinutes) { this.digestIntervalMinutes = digestIntervalMinutes; }
+    public LocalDateTime getUpdatedAt() { return updatedAt; }
+    public void setUpdatedAt(LocalDateTime updatedAt) { this.updatedAt = updatedAt; }
+}
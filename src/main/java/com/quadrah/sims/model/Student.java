@@ -2,13 +2,25 @@ package com.quadrah.sims.model;
 
 import com.fasterxml.jackson.annotation.JsonIgnore;
 import jakarta.persistence.*;
+import org.hibernate.annotations.BatchSize;
 import java.time.LocalDate;
 import java.util.ArrayList;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Set;
 
+// Every association is lazy; list and search screens read StudentSummary projections. Detail views
+// join-fetch medical histories through the named entity graph below and read emergency contacts in
+// a second batched query; joining both collections would return one row per history-contact pair.
 @Entity
 @Table(name = "students")
+@NamedEntityGraph(name = Student.DETAIL_GRAPH, attributeNodes = {
+        @NamedAttributeNode("medicalHistories")
+})
 public class Student {
+    // What the student detail endpoint serializes
+    public static final String DETAIL_GRAPH = "Student.detail";
+
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
     private Long id;
@@ -37,19 +49,30 @@ public class Student {
     @Column(name = "special_notes", length = 1000)
     private String specialNotes;
 
+    // Bumped in the database by every health write for this student, so any node can tell whether
+    // a cached health profile is stale. Never written through the entity.
+    @JsonIgnore
+    @Column(name = "health_version", nullable = false, insertable = false, updatable = false,
+            columnDefinition = "bigint default 0")
+    private Long healthVersion;
+
     @JsonIgnore
     @OneToMany(mappedBy = "student", cascade = CascadeType.ALL, fetch = FetchType.LAZY)
     private List<StudentVisit> visits = new ArrayList<>();
 
     @JsonIgnore
-    @OneToMany(mappedBy = "student", cascade = CascadeType.ALL, fetch = FetchType.EAGER)
-    private List<Allergy> allergies = new ArrayList<>();
+    @OneToMany(mappedBy = "student", cascade = CascadeType.ALL, fetch = FetchType.LAZY)
+    @OrderBy("allergyType")
+    private Set<Allergy> allergies = new LinkedHashSet<>();
 
-    @OneToMany(mappedBy = "student", cascade = CascadeType.ALL, fetch = FetchType.EAGER)
-    private List<MedicalHistory> medicalHistories = new ArrayList<>();
+    @OneToMany(mappedBy = "student", cascade = CascadeType.ALL, fetch = FetchType.LAZY)
+    @OrderBy("conditionName")
+    private Set<MedicalHistory> medicalHistories = new LinkedHashSet<>();
 
-    @OneToMany(mappedBy = "student", cascade = CascadeType.ALL, fetch = FetchType.EAGER)
-    private List<EmergencyContact> emergencyContacts = new ArrayList<>();
+    @OneToMany(mappedBy = "student", cascade = CascadeType.ALL, fetch = FetchType.LAZY)
+    @OrderBy("isPrimary DESC, contactName")
+    @BatchSize(size = 50)
+    private Set<EmergencyContact> emergencyContacts = new LinkedHashSet<>();
 
     // Constructors, getters, and setters
     public Student() {}
@@ -73,12 +96,14 @@ public class Student {
     public void setGender(String gender) { this.gender = gender; }
     public String getSpecialNotes() { return specialNotes; }
     public void setSpecialNotes(String specialNotes) { this.specialNotes = specialNotes; }
+    public Long getHealthVersion() { return healthVersion; }
+    public void setHealthVersion(Long healthVersion) { this.healthVersion = healthVersion; }
     public List<StudentVisit> getVisits() { return visits; }
     public void setVisits(List<StudentVisit> visits) { this.visits = visits; }
-    public List<Allergy> getAllergies() { return allergies; }
-    public void setAllergies(List<Allergy> allergies) { this.allergies = allergies; }
-    public List<MedicalHistory> getMedicalHistories() { return medicalHistories; }
-    public void setMedicalHistories(List<MedicalHistory> medicalHistories) { this.medicalHistories = medicalHistories; }
-    public List<EmergencyContact> getEmergencyContacts() { return emergencyContacts; }
-    public void setEmergencyContacts(List<EmergencyContact> emergencyContacts) { this.emergencyContacts = emergencyContacts; }
+    public Set<Allergy> getAllergies() { return allergies; }
+    public void setAllergies(Set<Allergy> allergies) { this.allergies = allergies; }
+    public Set<MedicalHistory> getMedicalHistories() { return medicalHistories; }
+    public void setMedicalHistories(Set<MedicalHistory> medicalHistories) { this.medicalHistories = medicalHistories; }
+    public Set<EmergencyContact> getEmergencyContacts() { return emergencyContacts; }
+    public void setEmergencyContacts(Set<EmergencyContact> emergencyContacts) { this.emergencyContacts = emergencyContacts; }
 }
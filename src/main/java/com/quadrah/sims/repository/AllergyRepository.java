@@ -1,7 +1,7 @@
 package com.quadrah.sims.repository;
 
+import com.quadrah.sims.dto.StudentSummary;
 import com.quadrah.sims.model.Allergy;
-import com.quadrah.sims.model.Student;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
@@ -13,19 +13,21 @@ import java.util.List;
 public interface AllergyRepository extends JpaRepository<Allergy, Long> {
 
     // Find all allergies for a student
-    List<Allergy> findByStudentOrderByAllergyType(Student student);
+    List<Allergy> findByStudentIdOrderByAllergyType(Long studentId);
 
     // Find allergies by type (across all students)
     List<Allergy> findByAllergyTypeContainingIgnoreCase(String allergyType);
 
     // Find students with specific allergy type
-    @Query("SELECT a.student FROM Allergy a WHERE LOWER(a.allergyType) LIKE LOWER(CONCAT('%', :allergyType, '%'))")
-    List<Student> findStudentsByAllergyType(@Param("allergyType") String allergyType);
+    @Query("SELECT DISTINCT new com.quadrah.sims.dto.StudentSummary(s.id, s.studentId, s.firstName, s.lastName, " +
+            "s.gradeLevel, s.homeroom, s.dateOfBirth, s.gender) FROM Allergy a JOIN a.student s " +
+            "WHERE LOWER(a.allergyType) LIKE LOWER(CONCAT('%', :allergyType, '%'))")
+    List<StudentSummary> findStudentsByAllergyType(@Param("allergyType") String allergyType);
 
     // Count allergies by type for reporting
     @Query("SELECT a.allergyType, COUNT(a) FROM Allergy a GROUP BY a.allergyType")
     List<Object[]> countAllergiesByType();
 
     // Check if student has a specific allergy
-    boolean existsByStudentAndAllergyTypeContainingIgnoreCase(Student student, String allergyType);
+    boolean existsByStudentIdAndAllergyTypeContainingIgnoreCase(Long studentId, String allergyType);
 }
@@ -0,0 +1,24 @@
+package com.quadrah.sims.repository;
+
+import com.quadrah.sims.model.ArchivedNotification;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Repository
+public interface ArchivedNotificationRepository extends JpaRepository<ArchivedNotification, Long> {
+
+    // Keyset page of a user's archived notifications, same ordering as the live feed; the plain
+    // createdAt bound lets the index scan start at the cursor instead of filtering every newer row
+    @Query("SELECT a FROM ArchivedNotification a WHERE a.userId = :userId " +
+            "AND a.createdAt <= :createdAt AND (a.createdAt < :createdAt OR a.id < :id) " +
+            "ORDER BY a.createdAt DESC, a.id DESC")
+    List<ArchivedNotification> findHistoryPage(@Param("userId") Long userId,
+                                               @Param("createdAt") LocalDateTime createdAt,
+                                               @Param("id") Long id, Pageable pageable);
+}
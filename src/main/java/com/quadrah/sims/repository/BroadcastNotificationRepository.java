@@ -0,0 +1,57 @@
+package com.quadrah.sims.repository;
+
+import com.quadrah.sims.model.BroadcastNotification;
+import com.quadrah.sims.model.BroadcastReadState;
+import com.quadrah.sims.model.UserAccount;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+
+@Repository
+public interface BroadcastNotificationRepository extends JpaRepository<BroadcastNotification, Long> {
+
+    @Query("SELECT b FROM BroadcastNotification b WHERE (b.audienceRole IS NULL OR b.audienceRole = :role) " +
+            "AND b.visibleUntil > :now ORDER BY b.createdAt DESC")
+    List<BroadcastNotification> findVisibleFor(@Param("role") UserAccount.UserRole role,
+                                               @Param("now") LocalDateTime now);
+
+    @Query("SELECT b FROM BroadcastNotification b WHERE b.visibleUntil > :now")
+    List<BroadcastNotification> findVisible(@Param("now") LocalDateTime now);
+
+    @Query("SELECT COUNT(b) FROM BroadcastNotification b WHERE (b.audienceRole IS NULL OR b.audienceRole = :role) " +
+            "AND b.visibleUntil > :now AND NOT EXISTS (SELECT r FROM BroadcastReadState r " +
+            "WHERE r.id.broadcastId = b.id AND r.id.userId = :userId)")
+    long countUnreadFor(@Param("userId") Long userId, @Param("role") UserAccount.UserRole role,
+                        @Param("now") LocalDateTime now);
+
+    @Query("SELECT r FROM BroadcastReadState r " +
+            "WHERE r.id.userId = :userId AND r.id.broadcastId IN :broadcastIds")
+    List<BroadcastReadState> findReadStates(@Param("userId") Long userId, @Param("broadcastIds") Collection<Long> broadcastIds);
+
+    // [userId, count] of read markers per user among the given broadcasts
+    @Query("SELECT r.id.userId, COUNT(r) FROM BroadcastReadState r " +
+            "WHERE r.id.userId IN :userIds AND r.id.broadcastId IN :broadcastIds GROUP BY r.id.userId")
+    List<Object[]> countReadByUser(@Param("userIds") Collection<Long> userIds,
+                                   @Param("broadcastIds") Collection<Long> broadcastIds);
+
+    // Both inserts only mark broadcasts the user's role can see, and skip ones already read
+    @Modifying
+    @Query(value = "INSERT INTO broadcast_read_states (broadcast_id, user_id, read_at) " +
+            "SELECT b.id, :userId, now() FROM broadcast_notifications b " +
+            "WHERE b.id = :broadcastId AND (b.audience_role IS NULL OR b.audience_role = :role) " +
+            "ON CONFLICT (broadcast_id, user_id) DO NOTHING", nativeQuery = true)
+    int markRead(@Param("broadcastId") Long broadcastId, @Param("userId") Long userId, @Param("role") String role);
+
+    @Modifying
+    @Query(value = "INSERT INTO broadcast_read_states (broadcast_id, user_id, read_at) " +
+            "SELECT b.id, :userId, now() FROM broadcast_notifications b " +
+            "WHERE (b.audience_role IS NULL OR b.audience_role = :role) AND b.visible_until > :now " +
+            "ON CONFLICT (broadcast_id, user_id) DO NOTHING", nativeQuery = true)
+    int markAllRead(@Param("userId") Long userId, @Param("role") String role, @Param("now") LocalDateTime now);
+}
@@ -0,0 +1,20 @@
+package com.quadrah.sims.repository;
+
+import com.quadrah.sims.model.DutyShift;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Repository
+public interface DutyShiftRepository extends JpaRepository<DutyShift, Long> {
+
+    // Shifts overlapping [from, to)
+    @Query("SELECT s FROM DutyShift s WHERE s.startsAt < :to AND s.endsAt > :from ORDER BY s.startsAt")
+    List<DutyShift> findOverlapping(@Param("from") LocalDateTime from, @Param("to") LocalDateTime to);
+
+    List<DutyShift> findByUserIdOrderByStartsAtDesc(Long userId);
+}
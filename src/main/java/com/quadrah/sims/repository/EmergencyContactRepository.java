@@ -14,6 +14,8 @@ public interface EmergencyContactRepository extends JpaRepository<EmergencyConta
     // Find all emergency contacts for a student
     List<EmergencyContact> findByStudentOrderByIsPrimaryDesc(Student student);
 
+    List<EmergencyContact> findByStudentIdOrderByIsPrimaryDesc(Long studentId);
+
     // Find primary emergency contact for a student
     Optional<EmergencyContact> findByStudentAndIsPrimaryTrue(Student student);
 
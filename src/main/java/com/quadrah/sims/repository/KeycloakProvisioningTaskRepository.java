@@ -0,0 +1,33 @@
+package com.quadrah.sims.repository;
+
+import com.quadrah.sims.model.KeycloakProvisioningTask;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+
+@Repository
+public interface KeycloakProvisioningTaskRepository extends JpaRepository<KeycloakProvisioningTask, Long> {
+
+    // Lock due tasks; SKIP LOCKED lets several nodes poll the queue without claiming the same rows
+    @Query(value = "SELECT * FROM keycloak_provisioning_tasks " +
+            "WHERE status = 'PENDING' AND next_attempt_at <= :now " +
+            "ORDER BY id LIMIT :limit FOR UPDATE SKIP LOCKED", nativeQuery = true)
+    List<KeycloakProvisioningTask> lockDueTasks(@Param("now") LocalDateTime now, @Param("limit") int limit);
+
+    // Tasks left IN_PROGRESS by a node that died go back to the queue
+    @Modifying
+    @Query("UPDATE KeycloakProvisioningTask t SET t.status = 'PENDING', t.updatedAt = CURRENT_TIMESTAMP " +
+            "WHERE t.status = 'IN_PROGRESS' AND t.updatedAt < :cutoff")
+    int requeueStaleTasks(@Param("cutoff") LocalDateTime cutoff);
+
+    boolean existsByUserIdAndStatus(Long userId, KeycloakProvisioningTask.Status status);
+
+    // Latest provisioning state for a user
+    Optional<KeycloakProvisioningTask> findFirstByUserIdOrderByIdDesc(Long userId);
+}
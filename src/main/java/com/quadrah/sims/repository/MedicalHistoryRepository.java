@@ -1,7 +1,7 @@
 package com.quadrah.sims.repository;
 
+import com.quadrah.sims.dto.StudentSummary;
 import com.quadrah.sims.model.MedicalHistory;
-import com.quadrah.sims.model.Student;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
@@ -13,22 +13,24 @@ import java.util.List;
 public interface MedicalHistoryRepository extends JpaRepository<MedicalHistory, Long> {
 
     // Find medical history for a student, ordered by condition name
-    List<MedicalHistory> findByStudentOrderByConditionName(Student student);
+    List<MedicalHistory> findByStudentIdOrderByConditionName(Long studentId);
 
     // Find active medical history for a student
-    List<MedicalHistory> findByStudentAndIsActiveTrueOrderByConditionName(Student student);
+    List<MedicalHistory> findByStudentIdAndIsActiveTrueOrderByConditionName(Long studentId);
 
     // Find medical history by condition name (across all students)
     List<MedicalHistory> findByConditionNameContainingIgnoreCase(String conditionName);
 
     // Find students with specific medical conditions
-    @Query("SELECT m.student FROM MedicalHistory m WHERE LOWER(m.conditionName) LIKE LOWER(CONCAT('%', :conditionName, '%')) AND m.isActive = true")
-    List<Student> findStudentsByConditionName(@Param("conditionName") String conditionName);
+    @Query("SELECT DISTINCT new com.quadrah.sims.dto.StudentSummary(s.id, s.studentId, s.firstName, s.lastName, " +
+            "s.gradeLevel, s.homeroom, s.dateOfBirth, s.gender) FROM MedicalHistory m JOIN m.student s " +
+            "WHERE LOWER(m.conditionName) LIKE LOWER(CONCAT('%', :conditionName, '%')) AND m.isActive = true")
+    List<StudentSummary> findStudentsByConditionName(@Param("conditionName") String conditionName);
 
     // Count medical conditions by type for reporting
     @Query("SELECT m.conditionName, COUNT(m) FROM MedicalHistory m WHERE m.isActive = true GROUP BY m.conditionName")
     List<Object[]> countConditionsByType();
 
     // Check if student has a specific medical condition
-    boolean existsByStudentAndConditionNameContainingIgnoreCaseAndIsActiveTrue(Student student, String conditionName);
+    boolean existsByStudentIdAndConditionNameContainingIgnoreCaseAndIsActiveTrue(Long studentId, String conditionName);
 }
\ No newline at end of file
@@ -2,6 +2,7 @@ package com.quadrah.sims.repository;
 
 import com.quadrah.sims.model.MedicationAdministration;
 import com.quadrah.sims.model.StudentVisit;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
@@ -26,6 +27,9 @@ public interface MedicationAdministrationRepository extends JpaRepository<Medica
     @Query("SELECT ma FROM MedicationAdministration ma WHERE ma.studentVisit.student.id = :studentId ORDER BY ma.administrationTime DESC")
     List<MedicationAdministration> findByStudentId(@Param("studentId") Long studentId);
 
+    @Query("SELECT ma FROM MedicationAdministration ma WHERE ma.studentVisit.student.id = :studentId ORDER BY ma.administrationTime DESC")
+    List<MedicationAdministration> findRecentByStudentId(@Param("studentId") Long studentId, Pageable pageable);
+
     // Count medication administrations by medication for reporting
     @Query("SELECT ma.medicationName, COUNT(ma) FROM MedicationAdministration ma WHERE ma.administrationTime BETWEEN :startDate AND :endDate GROUP BY ma.medicationName")
     List<Object[]> countAdministrationsByMedicationBetweenDates(@Param("startDate") LocalDateTime startDate, @Param("endDate") LocalDateTime endDate);
@@ -0,0 +1,44 @@
+package com.quadrah.sims.repository;
+
+import com.quadrah.sims.model.Notification;
+import com.quadrah.sims.model.NotificationOutbox;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+
+@Repository
+public interface NotificationOutboxRepository extends JpaRepository<NotificationOutbox, Long> {
+
+    // Atomically takes ownership of a pending event; 0 means another worker or node got it first
+    @Modifying
+    @Query("UPDATE NotificationOutbox o SET o.status = :processing, o.attempts = o.attempts + 1, o.claimedAt = :now " +
+            "WHERE o.id = :id AND o.status = :pending")
+    int claim(@Param("id") Long id, @Param("now") LocalDateTime now,
+              @Param("pending") NotificationOutbox.Status pending,
+              @Param("processing") NotificationOutbox.Status processing);
+
+    @Query("SELECT o FROM NotificationOutbox o WHERE o.status = :status AND o.availableAt <= :now ORDER BY o.id")
+    List<NotificationOutbox> findDue(@Param("status") NotificationOutbox.Status status, @Param("now") LocalDateTime now,
+                          Pageable pageable);
+
+    // Whether an escalation for this alert is still waiting for (or going through) dispatch
+    @Query("SELECT COUNT(o) > 0 FROM NotificationOutbox o WHERE o.escalationLevel > 0 AND o.type = :type " +
+            "AND o.relatedEntityType = :entityType AND o.relatedEntityId = :entityId AND o.status IN :statuses")
+    boolean existsOpenEscalation(@Param("type") Notification.NotificationType type,
+                                 @Param("entityType") String entityType, @Param("entityId") Long entityId,
+                                 @Param("statuses") Collection<NotificationOutbox.Status> statuses);
+
+    // Events left PROCESSING by a worker that died are handed back to the sweeper
+    @Modifying
+    @Query("UPDATE NotificationOutbox o SET o.status = :pending WHERE o.status = :processing AND o.claimedAt < :cutoff")
+    int requeueStale(@Param("cutoff") LocalDateTime cutoff,
+                     @Param("pending") NotificationOutbox.Status pending,
+                     @Param("processing") NotificationOutbox.Status processing);
+}
@@ -0,0 +1,16 @@
+package com.quadrah.sims.repository;
+
+import com.quadrah.sims.model.NotificationPreference;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+import java.util.Optional;
+
+@Repository
+public interface NotificationPreferenceRepository extends JpaRepository<NotificationPreference, Long> {
+
+    Optional<NotificationPreference> findByUserId(Long userId);
+
+    List<NotificationPreference> findByDeliveryMode(NotificationPreference.DeliveryMode deliveryMode);
+}
@@ -2,12 +2,15 @@ package com.quadrah.sims.repository;
 
 import com.quadrah.sims.model.Notification;
 import com.quadrah.sims.model.UserAccount;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 
 @Repository
@@ -20,14 +23,71 @@ public interface NotificationRepository extends JpaRepository<Notification, Long
 
     long countByRecipientAndStatus(UserAccount recipient, Notification.NotificationStatus status);
 
+    long countByRecipientIdAndStatus(Long recipientId, Notification.NotificationStatus status);
+
+    // [recipientId, count] for each recipient that has at least one notification in the status
+    @Query("SELECT n.recipient.id, COUNT(n) FROM Notification n " +
+            "WHERE n.recipient.id IN :recipientIds AND n.status = :status GROUP BY n.recipient.id")
+    List<Object[]> countByRecipientIdsAndStatus(@Param("recipientIds") Collection<Long> recipientIds,
+                                                @Param("status") Notification.NotificationStatus status);
+
     @Modifying
-    @Query("UPDATE Notification n SET n.status = 'READ', n.readAt = CURRENT_TIMESTAMP WHERE n.id = :id AND n.recipient.id = :userId")
+    @Query("UPDATE Notification n SET n.status = 'READ', n.readAt = CURRENT_TIMESTAMP WHERE n.id = :id AND n.recipient.id = :userId AND n.status = 'UNREAD'")
     int markAsRead(@Param("id") Long id, @Param("userId") Long userId);
 
     @Modifying
     @Query("UPDATE Notification n SET n.status = 'READ', n.readAt = CURRENT_TIMESTAMP WHERE n.recipient.id = :userId AND n.status = 'UNREAD'")
     int markAllAsRead(@Param("userId") Long userId);
 
+    // Keyset feed: rows strictly older than (createdAt, id), newest first. One method per filter
+    // combination so each query has a fixed shape that can use idx_notifications_user_*.
+    // The plain createdAt <= bound is what lets Postgres start the index scan at the cursor;
+    // the OR on its own is only a filter, so every newer row would be read on each page.
+    @Query("SELECT n FROM Notification n WHERE n.recipient.id = :userId " +
+            "AND n.createdAt <= :createdAt AND (n.createdAt < :createdAt OR n.id < :id) " +
+            "ORDER BY n.createdAt DESC, n.id DESC")
+    List<Notification> findFeedPage(@Param("userId") Long userId, @Param("createdAt") LocalDateTime createdAt,
+                                    @Param("id") Long id, Pageable pageable);
+
+    @Query("SELECT n FROM Notification n WHERE n.recipient.id = :userId AND n.status = :status " +
+            "AND n.createdAt <= :createdAt AND (n.createdAt < :createdAt OR n.id < :id) " +
+            "ORDER BY n.createdAt DESC, n.id DESC")
+    List<Notification> findFeedPageByStatus(@Param("userId") Long userId,
+                                            @Param("status") Notification.NotificationStatus status,
+                                            @Param("createdAt") LocalDateTime createdAt,
+                                            @Param("id") Long id, Pageable pageable);
+
+    @Query("SELECT n FROM Notification n WHERE n.recipient.id = :userId AND n.type = :type " +
+            "AND n.createdAt <= :createdAt AND (n.createdAt < :createdAt OR n.id < :id) " +
+            "ORDER BY n.createdAt DESC, n.id DESC")
+    List<Notification> findFeedPageByType(@Param("userId") Long userId,
+                                          @Param("type") Notification.NotificationType type,
+                                          @Param("createdAt") LocalDateTime createdAt,
+                                          @Param("id") Long id, Pageable pageable);
+
+    @Query("SELECT n FROM Notification n WHERE n.recipient.id = :userId AND n.status = :status AND n.type = :type " +
+            "AND n.createdAt <= :createdAt AND (n.createdAt < :createdAt OR n.id < :id) " +
+            "ORDER BY n.createdAt DESC, n.id DESC")
+    List<Notification> findFeedPageByStatusAndType(@Param("userId") Long userId,
+                                                   @Param("status") Notification.NotificationStatus status,
+                                                   @Param("type") Notification.NotificationType type,
+                                                   @Param("createdAt") LocalDateTime createdAt,
+                                                   @Param("id") Long id, Pageable pageable);
+
+    // Whether anyone has read a notification about this entity since the alert went out
+    @Query("SELECT COUNT(n) > 0 FROM Notification n WHERE n.type = :type AND n.relatedEntityType = :entityType " +
+            "AND n.relatedEntityId = :entityId AND n.readAt >= :since")
+    boolean existsReadSince(@Param("type") Notification.NotificationType type,
+                            @Param("entityType") String entityType, @Param("entityId") Long entityId,
+                            @Param("since") LocalDateTime since);
+
+    // Users already holding a notification about this entity from the alert onwards
+    @Query("SELECT DISTINCT n.recipient.id FROM Notification n WHERE n.type = :type " +
+            "AND n.relatedEntityType = :entityType AND n.relatedEntityId = :entityId AND n.createdAt >= :since")
+    List<Long> findRecipientIdsNotifiedSince(@Param("type") Notification.NotificationType type,
+                                             @Param("entityType") String entityType, @Param("entityId") Long entityId,
+                                             @Param("since") LocalDateTime since);
+
     List<Notification> findByTypeAndStatusOrderByCreatedAtDesc(Notification.NotificationType type, Notification.NotificationStatus status);
 
     // ADDED: Method to find all notifications for a user
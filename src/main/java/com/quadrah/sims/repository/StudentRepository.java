@@ -1,37 +1,71 @@
 package com.quadrah.sims.repository;
 
 
+import com.quadrah.sims.dto.StudentSummary;
 import com.quadrah.sims.model.Student;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 @Repository
 public interface StudentRepository extends JpaRepository<Student, Long> {
 
+    String SUMMARY = "SELECT new com.quadrah.sims.dto.StudentSummary(s.id, s.studentId, s.firstName, s.lastName, " +
+            "s.gradeLevel, s.homeroom, s.dateOfBirth, s.gender) FROM Student s ";
+
     // Find student by student ID (unique identifier)
     Optional<Student> findByStudentId(String studentId);
 
+    // Detail views: the student with its medical histories; emergency contacts are batch-loaded
+    @EntityGraph(Student.DETAIL_GRAPH)
+    Optional<Student> findDetailById(Long id);
+
+    @EntityGraph(Student.DETAIL_GRAPH)
+    Optional<Student> findDetailByStudentId(String studentId);
+
+    // Find all students ordered by last name, first name
+    @Query(SUMMARY + "ORDER BY s.lastName, s.firstName")
+    List<StudentSummary> findAllSummaries();
+
     // Find students by grade level
-    List<Student> findByGradeLevel(String gradeLevel);
+    @Query(SUMMARY + "WHERE s.gradeLevel = :gradeLevel ORDER BY s.lastName, s.firstName")
+    List<StudentSummary> findSummariesByGradeLevel(@Param("gradeLevel") String gradeLevel);
 
     // Find students by homeroom
-    List<Student> findByHomeroom(String homeroom);
+    @Query(SUMMARY + "WHERE s.homeroom = :homeroom ORDER BY s.lastName, s.firstName")
+    List<StudentSummary> findSummariesByHomeroom(@Param("homeroom") String homeroom);
 
-    // Search students by name (first or last name containing search term)
-    @Query("SELECT s FROM Student s WHERE LOWER(s.firstName) LIKE LOWER(CONCAT('%', :name, '%')) OR LOWER(s.lastName) LIKE LOWER(CONCAT('%', :name, '%'))")
-    List<Student> findByNameContainingIgnoreCase(@Param("name") String name);
+    // Export cursor: must be consumed inside a transaction so the driver fetches in chunks instead of all rows
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"),
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    @Query(SUMMARY + "WHERE (:gradeLevel IS NULL OR s.gradeLevel = :gradeLevel) " +
+            "AND (:homeroom IS NULL OR s.homeroom = :homeroom) ORDER BY s.lastName, s.firstName, s.id")
+    Stream<StudentSummary> streamSummaries(@Param("gradeLevel") String gradeLevel, @Param("homeroom") String homeroom);
+
+    // Health profile cache stamp; empty once the student is gone
+    @Query("SELECT s.healthVersion FROM Student s WHERE s.id = :id")
+    Optional<Long> findHealthVersionById(@Param("id") Long id);
+
+    // Runs in the writing transaction, so the new version commits with the health change
+    @Modifying
+    @Query("UPDATE Student s SET s.healthVersion = s.healthVersion + 1 WHERE s.id = :id")
+    int incrementHealthVersion(@Param("id") Long id);
 
     // Find students by grade level and homeroom
     List<Student> findByGradeLevelAndHomeroom(String gradeLevel, String homeroom);
 
     // Check if student ID already exists (for validation)
     boolean existsByStudentId(String studentId);
-
-    // Find all students ordered by last name, first name
-    List<Student> findAllByOrderByLastNameAscFirstNameAsc();
-}
\ No newline at end of file
+}
@@ -3,6 +3,7 @@ package com.quadrah.sims.repository;
 import com.quadrah.sims.model.Student;
 import com.quadrah.sims.model.StudentVisit;
 import com.quadrah.sims.model.UserAccount;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
@@ -10,6 +11,7 @@ import org.springframework.stereotype.Repository;
 
 import java.time.LocalDateTime;
 import java.util.List;
+import java.util.Optional;
 
 @Repository
 public interface StudentVisitRepository extends JpaRepository<StudentVisit, Long> {
@@ -22,6 +24,13 @@ public interface StudentVisitRepository extends JpaRepository<StudentVisit, Long
     List<StudentVisit> findByVisitDateBetweenOrderByVisitDateDesc(LocalDateTime startDate, LocalDateTime endDate);
     List<StudentVisit> findByStudentAndVisitDateBetweenOrderByVisitDateDesc(Student student, LocalDateTime startDate, LocalDateTime endDate);
     List<StudentVisit> findByDispositionIsNullOrderByVisitDateDesc();
+
+    // Health profile: latest visits with the nurse, without touching the student row
+    @Query("SELECT v FROM StudentVisit v JOIN FETCH v.nurse WHERE v.student.id = :studentId ORDER BY v.visitDate DESC")
+    List<StudentVisit> findRecentWithNurseByStudentId(@Param("studentId") Long studentId, Pageable pageable);
+
+    @Query("SELECT v.student.id FROM StudentVisit v WHERE v.id = :visitId")
+    Optional<Long> findStudentIdById(@Param("visitId") Long visitId);
     long countByStudent(Student student);
     List<StudentVisit> findByStudentInOrderByVisitDateDesc(List<Student> students);
 
@@ -1,9 +1,10 @@
 package com.quadrah.sims.service;
 
+import com.quadrah.sims.dto.StudentSummary;
 import com.quadrah.sims.model.Allergy;
-import com.quadrah.sims.model.Student;
 import com.quadrah.sims.repository.AllergyRepository;
 import com.quadrah.sims.repository.StudentRepository;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
@@ -15,26 +16,35 @@ public class AllergyService {
 
     private final AllergyRepository allergyRepository;
     private final StudentRepository studentRepository;
+    private final ApplicationEventPublisher eventPublisher;
 
-    public AllergyService(AllergyRepository allergyRepository, StudentRepository studentRepository) {
+    public AllergyService(AllergyRepository allergyRepository, StudentRepository studentRepository,
+                          ApplicationEventPublisher eventPublisher) {
         this.allergyRepository = allergyRepository;
         this.studentRepository = studentRepository;
+        this.eventPublisher = eventPublisher;
     }
 
+    @Transactional(readOnly = true)
     public List<Allergy> getAllergiesByStudent(Long studentId) {
-        Student student = studentRepository.findById(studentId)
-                .orElseThrow(() -> new IllegalArgumentException("Student not found with id: " + studentId));
-        return allergyRepository.findByStudentOrderByAllergyType(student);
+        if (!studentRepository.existsById(studentId)) {
+            throw new IllegalArgumentException("Student not found with id: " + studentId);
+        }
+        return allergyRepository.findByStudentIdOrderByAllergyType(studentId);
     }
 
     public Allergy createAllergy(Long studentId, Allergy allergy) {
-        Student student = studentRepository.findById(studentId)
-                .orElseThrow(() -> new IllegalArgumentException("Student not found with id: " + studentId));
+        if (!studentRepository.existsById(studentId)) {
+            throw new IllegalArgumentException("Student not found with id: " + studentId);
+        }
 
         validateAllergy(allergy);
 
-        allergy.setStudent(student);
-        return allergyRepository.save(allergy);
+        // Only the foreign key is needed
+        allergy.setStudent(studentRepository.getReferenceById(studentId));
+        Allergy saved = allergyRepository.save(allergy);
+        eventPublisher.publishEvent(new StudentHealthChangedEvent(studentId));
+        return saved;
     }
 
     public Allergy updateAllergy(Long allergyId, Allergy allergyDetails) {
@@ -48,7 +58,9 @@ public class AllergyService {
         allergy.setReaction(allergyDetails.getReaction());
         allergy.setNotes(allergyDetails.getNotes());
 
-        return allergyRepository.save(allergy);
+        Allergy saved = allergyRepository.save(allergy);
+        eventPublisher.publishEvent(new StudentHealthChangedEvent(allergy.getStudent().getId()));
+        return saved;
     }
 
     public void deleteAllergy(Long allergyId) {
@@ -56,15 +68,19 @@ public class AllergyService {
                 .orElseThrow(() -> new IllegalArgumentException("Allergy not found with id: " + allergyId));
 
         allergyRepository.delete(allergy);
+        eventPublisher.publishEvent(new StudentHealthChangedEvent(allergy.getStudent().getId()));
     }
 
+    @Transactional(readOnly = true)
     public boolean studentHasAllergy(Long studentId, String allergyType) {
-        Student student = studentRepository.findById(studentId)
-                .orElseThrow(() -> new IllegalArgumentException("Student not found with id: " + studentId));
-        return allergyRepository.existsByStudentAndAllergyTypeContainingIgnoreCase(student, allergyType);
+        if (!studentRepository.existsById(studentId)) {
+            throw new IllegalArgumentException("Student not found with id: " + studentId);
+        }
+        return allergyRepository.existsByStudentIdAndAllergyTypeContainingIgnoreCase(studentId, allergyType);
     }
 
-    public List<Student> getStudentsWithAllergy(String allergyType) {
+    @Transactional(readOnly = true)
+    public List<StudentSummary> getStudentsWithAllergy(String allergyType) {
         return allergyRepository.findStudentsByAllergyType(allergyType);
     }
 
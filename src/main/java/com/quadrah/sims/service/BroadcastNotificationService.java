@@ -0,0 +1,108 @@
+package com.quadrah.sims.service;
+
+import com.quadrah.sims.dto.NotificationDTO;
+import com.quadrah.sims.model.BroadcastNotification;
+import com.quadrah.sims.model.BroadcastReadState;
+import com.quadrah.sims.model.Notification;
+import com.quadrah.sims.model.UserAccount;
+import com.quadrah.sims.repository.BroadcastNotificationRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+// Campus-wide alerts: one broadcast_notifications row per alert plus a read marker per user
+// who has read it, instead of a full notifications row per recipient
+@Service
+@Transactional
+public class BroadcastNotificationService {
+
+    private static final Logger logger = LoggerFactory.getLogger(BroadcastNotificationService.class);
+
+    private final BroadcastNotificationRepository broadcastRepository;
+    private final NotificationPublisher publisher;
+    private final UnreadCounterService unreadCounterService;
+    private final Duration visibleFor;
+
+    public BroadcastNotificationService(BroadcastNotificationRepository broadcastRepository,
+                                        NotificationPublisher publisher,
+                                        UnreadCounterService unreadCounterService,
+                                        @Value("${app.notifications.broadcast.visible-for:30d}") Duration visibleFor) {
+        this.broadcastRepository = broadcastRepository;
+        this.publisher = publisher;
+        this.unreadCounterService = unreadCounterService;
+        this.visibleFor = visibleFor;
+    }
+
+    public BroadcastNotification createBroadcast(BroadcastNotification broadcast, Long createdBy) {
+        if (broadcast.getTitle() == null || broadcast.getTitle().isBlank()) {
+            throw new IllegalArgumentException("Broadcast title is required");
+        }
+        if (broadcast.getMessage() != null && broadcast.getMessage().length() > 1000) {
+            throw new IllegalArgumentException("Broadcast message must be at most 1000 characters");
+        }
+
+        broadcast.setId(null);
+        broadcast.setCreatedBy(createdBy);
+        if (broadcast.getType() == null) {
+            broadcast.setType(Notification.NotificationType.SYSTEM_ALERT);
+        }
+        if (broadcast.getVisibleUntil() == null) {
+            broadcast.setVisibleUntil(LocalDateTime.now().plus(visibleFor));
+        }
+        BroadcastNotification saved = broadcastRepository.save(broadcast);
+
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                NotificationDTO dto = new NotificationDTO(saved, null);
+                if (saved.getAudienceRole() == null) {
+                    publisher.publishToAll(dto);
+                } else {
+                    publisher.publishToRole(saved.getAudienceRole(), dto);
+                }
+                unreadCounterService.incrementForAudience(saved.getAudienceRole());
+            }
+        });
+
+        logger.info("Broadcast #{} '{}' to {}", saved.getId(), saved.getTitle(),
+                saved.getAudienceRole() == null ? "all users" : saved.getAudienceRole());
+        return saved;
+    }
+
+    @Transactional(readOnly = true)
+    public List<NotificationDTO> getBroadcastsFor(Long userId, UserAccount.UserRole role, boolean unreadOnly) {
+        List<BroadcastNotification> visible = broadcastRepository.findVisibleFor(role, LocalDateTime.now());
+        if (visible.isEmpty()) {
+            return List.of();
+        }
+
+        Map<Long, LocalDateTime> readAt = broadcastRepository
+                .findReadStates(userId, visible.stream().map(BroadcastNotification::getId).toList())
+                .stream()
+                .collect(Collectors.toMap(state -> state.getId().getBroadcastId(), BroadcastReadState::getReadAt));
+
+        return visible.stream()
+                .filter(b -> !unreadOnly || !readAt.containsKey(b.getId()))
+                .map(b -> new NotificationDTO(b, readAt.get(b.getId())))
+                .collect(Collectors.toList());
+    }
+
+    public void markRead(Long broadcastId, Long userId, UserAccount.UserRole role) {
+        int marked = broadcastRepository.markRead(broadcastId, userId, role.name());
+        unreadCounterService.adjustAfterCommit(userId, -marked);
+    }
+
+    public int markAllRead(Long userId, UserAccount.UserRole role) {
+        return broadcastRepository.markAllRead(userId, role.name(), LocalDateTime.now());
+    }
+}
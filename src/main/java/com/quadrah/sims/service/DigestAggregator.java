@@ -0,0 +1,153 @@
+package com.quadrah.sims.service;
+
+import com.quadrah.sims.dto.NotificationDTO;
+import com.quadrah.sims.model.Notification;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import jakarta.annotation.PreDestroy;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+// Collects low-priority events for users in digest mode and emits one DIGEST notification per
+// user when their window closes: one row, one push and one unread increment instead of one per
+// event. Pending digests are in memory only; they are flushed on shutdown.
+@Component
+public class DigestAggregator {
+
+    private static final Logger logger = LoggerFactory.getLogger(DigestAggregator.class);
+
+    private static final int MESSAGE_LIMIT = 1000;
+
+    private final NotificationFanOutWriter fanOutWriter;
+    private final NotificationPublisher publisher;
+    private final UnreadCounterService unreadCounterService;
+    private final TransactionTemplate transactionTemplate;
+    private final int maxItemsPerDigest;
+
+    private final Map<Long, PendingDigest> pending = new ConcurrentHashMap<>();
+
+    public DigestAggregator(NotificationFanOutWriter fanOutWriter,
+                            NotificationPublisher publisher,
+                            UnreadCounterService unreadCounterService,
+                            TransactionTemplate transactionTemplate,
+                            @Value("${app.notifications.digest.max-items:50}") int maxItemsPerDigest) {
+        this.fanOutWriter = fanOutWriter;
+        this.publisher = publisher;
+        this.unreadCounterService = unreadCounterService;
+        this.transactionTemplate = transactionTemplate;
+        this.maxItemsPerDigest = maxItemsPerDigest;
+    }
+
+    public void add(RecipientDirectory.Recipient recipient, Duration interval, Notification.NotificationType type,
+                    String title, String message) {
+        pending.compute(recipient.id(), (id, digest) -> {
+            PendingDigest current = digest != null ? digest
+                    : new PendingDigest(recipient, Instant.now().plus(interval));
+            current.add(new DigestItem(type, title, message), maxItemsPerDigest);
+            return current;
+        });
+    }
+
+    @Scheduled(fixedDelayString = "${app.notifications.digest.flush-interval-ms:30000}")
+    public void flushDue() {
+        Instant now = Instant.now();
+        for (Long userId : List.copyOf(pending.keySet())) {
+            PendingDigest digest = pending.get(userId);
+            if (digest != null && !digest.windowEnd().isAfter(now) && pending.remove(userId, digest)) {
+                emit(digest);
+            }
+        }
+    }
+
+    @PreDestroy
+    public void flushAll() {
+        for (Long userId : List.copyOf(pending.keySet())) {
+            PendingDigest digest = pending.remove(userId);
+            if (digest != null) {
+                emit(digest);
+            }
+        }
+    }
+
+    private void emit(PendingDigest digest) {
+        RecipientDirectory.Recipient recipient = digest.recipient();
+        String title = String.format("🗂️ Notification Digest (%d)", digest.total());
+        String message = digest.summary();
+        LocalDateTime createdAt = LocalDateTime.now();
+
+        try {
+            Map<Long, Long> ids = transactionTemplate.execute(status -> fanOutWriter.insert(
+                    title, message, Notification.NotificationType.DIGEST, null, null, createdAt,
+                    List.of(recipient.id())));
+            if (ids == null || !ids.containsKey(recipient.id())) {
+                return;
+            }
+
+            Notification notification = new Notification(title, message, Notification.NotificationType.DIGEST, null);
+            notification.setId(ids.get(recipient.id()));
+            notification.setCreatedAt(createdAt);
+            unreadCounterService.increment(List.of(recipient.id()));
+            publisher.publishToUser(recipient, new NotificationDTO(notification, recipient.toUserDTO()));
+        } catch (Exception e) {
+            logger.error("Failed to deliver notification digest to user {}", recipient.id(), e);
+        }
+    }
+
+    private record DigestItem(Notification.NotificationType type, String title, String message) {}
+
+    private static final class PendingDigest {
+        private final RecipientDirectory.Recipient recipient;
+        private final Instant windowEnd;
+        private final List<DigestItem> items = new ArrayList<>();
+        private final Map<String, Integer> countsByTitle = new LinkedHashMap<>();
+        private int total;
+
+        PendingDigest(RecipientDirectory.Recipient recipient, Instant windowEnd) {
+            this.recipient = recipient;
+            this.windowEnd = windowEnd;
+        }
+
+        // Called under ConcurrentHashMap.compute, so never concurrently for one user
+        void add(DigestItem item, int maxItems) {
+            total++;
+            countsByTitle.merge(item.title(), 1, Integer::sum);
+            if (items.size() < maxItems) {
+                items.add(item);
+            }
+        }
+
+        RecipientDirectory.Recipient recipient() { return recipient; }
+        Instant windowEnd() { return windowEnd; }
+        int total() { return total; }
+
+        String summary() {
+            StringBuilder summary = new StringBuilder();
+            countsByTitle.forEach((title, count) -> summary.append(count).append(" × ").append(title).append('\n'));
+            int listed = 0;
+            for (DigestItem item : items) {
+                String line = "• " + item.message() + '\n';
+                if (summary.length() + line.length() > MESSAGE_LIMIT - 20) {
+                    break;
+                }
+                summary.append(line);
+                listed++;
+            }
+            if (listed < total) {
+                summary.append("… and ").append(total - listed).append(" more");
+            }
+            String text = summary.toString().strip();
+            return text.length() > MESSAGE_LIMIT ? text.substring(0, MESSAGE_LIMIT) : text;
+        }
+    }
+}
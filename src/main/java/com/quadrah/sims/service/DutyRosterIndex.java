@@ -0,0 +1,118 @@
+package com.quadrah.sims.service;
+
+import com.quadrah.sims.model.DutyShift;
+import com.quadrah.sims.repository.DutyShiftRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+// In-memory interval index over the shifts around now, answering "who is on duty at t" without
+// a query per notification. Shifts are sorted by start with a running maximum of the end times,
+// so a lookup binary-searches the last shift starting at or before t and scans back only while
+// some earlier shift could still cover t. Rebuilt after roster changes commit and on a schedule,
+// which also moves the loaded window forward.
+@Component
+public class DutyRosterIndex {
+
+    private final DutyShiftRepository dutyShiftRepository;
+    private final Duration lookBehind;
+    private final Duration lookAhead;
+
+    private volatile Index index;
+
+    public DutyRosterIndex(DutyShiftRepository dutyShiftRepository,
+                           @Value("${app.duty-roster.look-behind:1d}") Duration lookBehind,
+                           @Value("${app.duty-roster.look-ahead:2d}") Duration lookAhead) {
+        this.dutyShiftRepository = dutyShiftRepository;
+        this.lookBehind = lookBehind;
+        this.lookAhead = lookAhead;
+    }
+
+    public Set<Long> onDutyAt(LocalDateTime time) {
+        Index current = index;
+        if (current == null || time.isBefore(current.from()) || !time.isBefore(current.to())) {
+            current = rebuild(time);
+        }
+        return current.onDutyAt(time);
+    }
+
+    @Scheduled(fixedDelayString = "${app.duty-roster.refresh-interval-ms:300000}")
+    public void refresh() {
+        rebuild(LocalDateTime.now());
+    }
+
+    public void invalidateAfterCommit() {
+        index = null;
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    index = null;
+                }
+            });
+        }
+    }
+
+    private Index rebuild(LocalDateTime around) {
+        LocalDateTime from = around.minus(lookBehind);
+        LocalDateTime to = around.plus(lookAhead);
+        Index rebuilt = Index.of(dutyShiftRepository.findOverlapping(from, to), from, to);
+        index = rebuilt;
+        return rebuilt;
+    }
+
+    private record Index(LocalDateTime[] starts, LocalDateTime[] ends, LocalDateTime[] maxEnds, long[] userIds,
+                         LocalDateTime from, LocalDateTime to) {
+
+        // Shifts arrive ordered by start
+        static Index of(List<DutyShift> shifts, LocalDateTime from, LocalDateTime to) {
+            int size = shifts.size();
+            LocalDateTime[] starts = new LocalDateTime[size];
+            LocalDateTime[] ends = new LocalDateTime[size];
+            LocalDateTime[] maxEnds = new LocalDateTime[size];
+            long[] userIds = new long[size];
+            for (int i = 0; i < size; i++) {
+                DutyShift shift = shifts.get(i);
+                starts[i] = shift.getStartsAt();
+                ends[i] = shift.getEndsAt();
+                userIds[i] = shift.getUserId();
+                maxEnds[i] = i == 0 || ends[i].isAfter(maxEnds[i - 1]) ? ends[i] : maxEnds[i - 1];
+            }
+            return new Index(starts, ends, maxEnds, userIds, from, to);
+        }
+
+        Set<Long> onDutyAt(LocalDateTime time) {
+            Set<Long> onDuty = new HashSet<>();
+            for (int i = lastStartingAtOrBefore(time); i >= 0 && maxEnds[i].isAfter(time); i--) {
+                if (ends[i].isAfter(time)) {
+                    onDuty.add(userIds[i]);
+                }
+            }
+            return onDuty;
+        }
+
+        private int lastStartingAtOrBefore(LocalDateTime time) {
+            int low = 0;
+            int high = starts.length - 1;
+            int result = -1;
+            while (low <= high) {
+                int mid = (low + high) >>> 1;
+                if (starts[mid].isAfter(time)) {
+                    high = mid - 1;
+                } else {
+                    result = mid;
+                    low = mid + 1;
+                }
+            }
+            return result;
+        }
+    }
+}
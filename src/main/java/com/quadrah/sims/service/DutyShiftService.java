@@ -0,0 +1,79 @@
+package com.quadrah.sims.service;
+
+import com.quadrah.sims.model.DutyShift;
+import com.quadrah.sims.model.UserAccount;
+import com.quadrah.sims.repository.DutyShiftRepository;
+import com.quadrah.sims.repository.UserAccountRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Service
+@Transactional
+public class DutyShiftService {
+
+    private final DutyShiftRepository dutyShiftRepository;
+    private final UserAccountRepository userAccountRepository;
+    private final DutyRosterIndex dutyRosterIndex;
+    private final Duration maxShiftLength;
+
+    public DutyShiftService(DutyShiftRepository dutyShiftRepository,
+                            UserAccountRepository userAccountRepository,
+                            DutyRosterIndex dutyRosterIndex,
+                            @Value("${app.duty-roster.max-shift-length:24h}") Duration maxShiftLength) {
+        this.dutyShiftRepository = dutyShiftRepository;
+        this.userAccountRepository = userAccountRepository;
+        this.dutyRosterIndex = dutyRosterIndex;
+        this.maxShiftLength = maxShiftLength;
+    }
+
+    @Transactional(readOnly = true)
+    public List<DutyShift> getShifts(LocalDateTime from, LocalDateTime to) {
+        if (from == null || to == null) {
+            throw new IllegalArgumentException("From and to are required.");
+        }
+        if (!from.isBefore(to)) {
+            throw new IllegalArgumentException("From must be before to.");
+        }
+        return dutyShiftRepository.findOverlapping(from, to);
+    }
+
+    @Transactional(readOnly = true)
+    public List<DutyShift> getShiftsForUser(Long userId) {
+        return dutyShiftRepository.findByUserIdOrderByStartsAtDesc(userId);
+    }
+
+    public DutyShift createShift(DutyShift shift) {
+        if (shift.getUserId() == null || shift.getStartsAt() == null || shift.getEndsAt() == null) {
+            throw new IllegalArgumentException("User, start and end are required.");
+        }
+        if (!shift.getStartsAt().isBefore(shift.getEndsAt())) {
+            throw new IllegalArgumentException("Shift start must be before its end.");
+        }
+        if (Duration.between(shift.getStartsAt(), shift.getEndsAt()).compareTo(maxShiftLength) > 0) {
+            throw new IllegalArgumentException("Shift cannot be longer than " + maxShiftLength.toHours() + " hours.");
+        }
+        UserAccount user = userAccountRepository.findById(shift.getUserId())
+                .orElseThrow(() -> new IllegalArgumentException("User not found with id: " + shift.getUserId()));
+        if (user.getRole() != UserAccount.UserRole.NURSE && user.getRole() != UserAccount.UserRole.ADMIN) {
+            throw new IllegalArgumentException("Only nurses and admins can be put on duty.");
+        }
+
+        shift.setId(null);
+        DutyShift saved = dutyShiftRepository.save(shift);
+        dutyRosterIndex.invalidateAfterCommit();
+        return saved;
+    }
+
+    public void deleteShift(Long id) {
+        if (!dutyShiftRepository.existsById(id)) {
+            throw new IllegalArgumentException("Duty shift not found with id: " + id);
+        }
+        dutyShiftRepository.deleteById(id);
+        dutyRosterIndex.invalidateAfterCommit();
+    }
+}
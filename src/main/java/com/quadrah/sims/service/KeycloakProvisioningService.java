@@ -0,0 +1,291 @@
+package com.quadrah.sims.service;
+
+import com.quadrah.sims.config.RoleMappingEngine;
+import com.quadrah.sims.model.KeycloakProvisioningTask;
+import com.quadrah.sims.model.UserAccount;
+import com.quadrah.sims.repository.KeycloakProvisioningTaskRepository;
+import com.quadrah.sims.repository.UserAccountRepository;
+import jakarta.ws.rs.NotFoundException;
+import jakarta.ws.rs.core.Response;
+import org.keycloak.admin.client.CreatedResponseUtil;
+import org.keycloak.admin.client.Keycloak;
+import org.keycloak.admin.client.resource.RealmResource;
+import org.keycloak.admin.client.resource.RoleMappingResource;
+import org.keycloak.admin.client.resource.UsersResource;
+import org.keycloak.representations.idm.ClientMappingsRepresentation;
+import org.keycloak.representations.idm.MappingsRepresentation;
+import org.keycloak.representations.idm.RoleRepresentation;
+import org.keycloak.representations.idm.UserRepresentation;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+
+// Durable queue of Keycloak-side provisioning work. Tasks are written in the same transaction as
+// the local user change, so the API returns immediately; workers push them to Keycloak with retries.
+@Service
+public class KeycloakProvisioningService {
+
+    private static final Logger logger = LoggerFactory.getLogger(KeycloakProvisioningService.class);
+
+    private final KeycloakProvisioningTaskRepository taskRepository;
+    private final UserAccountRepository userAccountRepository;
+    private final UserDirectoryCache userDirectoryCache;
+    private final RecipientDirectory recipientDirectory;
+    private final RoleMappingEngine roleMappingEngine;
+    private final Keycloak keycloak;
+    private final String realm;
+    private final TransactionTemplate transactionTemplate;
+    private final Executor keycloakAdminExecutor;
+    private final int batchSize;
+    private final int maxAttempts;
+    private final Duration baseBackoff;
+    private final Duration maxBackoff;
+    private final Duration staleAfter;
+
+    public KeycloakProvisioningService(KeycloakProvisioningTaskRepository taskRepository,
+                                       UserAccountRepository userAccountRepository,
+                                       UserDirectoryCache userDirectoryCache,
+                                       RecipientDirectory recipientDirectory,
+                                       RoleMappingEngine roleMappingEngine,
+                                       Keycloak keycloak,
+                                       @Value("${keycloak.realm}") String realm,
+                                       TransactionTemplate transactionTemplate,
+                                       @Qualifier("keycloakAdminExecutor") Executor keycloakAdminExecutor,
+                                       @Value("${app.keycloak-provisioning.batch-size:50}") int batchSize,
+                                       @Value("${app.keycloak-provisioning.max-attempts:8}") int maxAttempts,
+                                       @Value("${app.keycloak-provisioning.base-backoff:10s}") Duration baseBackoff,
+                                       @Value("${app.keycloak-provisioning.max-backoff:30m}") Duration maxBackoff,
+                                       @Value("${app.keycloak-provisioning.stale-after:10m}") Duration staleAfter) {
+        this.taskRepository = taskRepository;
+        this.userAccountRepository = userAccountRepository;
+        this.userDirectoryCache = userDirectoryCache;
+        this.recipientDirectory = recipientDirectory;
+        this.roleMappingEngine = roleMappingEngine;
+        this.keycloak = keycloak;
+        this.realm = realm;
+        this.transactionTemplate = transactionTemplate;
+        this.keycloakAdminExecutor = keycloakAdminExecutor;
+        this.batchSize = batchSize;
+        this.maxAttempts = maxAttempts;
+        this.baseBackoff = baseBackoff;
+        this.maxBackoff = maxBackoff;
+        this.staleAfter = staleAfter;
+    }
+
+    // Called inside the caller's transaction. A pending task already reads the latest user row
+    // when it runs, so further changes before then don't need a task of their own.
+    public void enqueue(UserAccount user, KeycloakProvisioningTask.Operation operation) {
+        if (taskRepository.existsByUserIdAndStatus(user.getId(), KeycloakProvisioningTask.Status.PENDING)) {
+            return;
+        }
+        taskRepository.save(new KeycloakProvisioningTask(user.getId(), operation));
+    }
+
+    public Optional<KeycloakProvisioningTask> getLatestTask(Long userId) {
+        return taskRepository.findFirstByUserIdOrderByIdDesc(userId);
+    }
+
+    @Scheduled(fixedDelayString = "${app.keycloak-provisioning.poll-interval-ms:5000}")
+    public void processDueTasks() {
+        transactionTemplate.executeWithoutResult(status ->
+                taskRepository.requeueStaleTasks(LocalDateTime.now().minus(staleAfter)));
+
+        List<KeycloakProvisioningTask> claimed = transactionTemplate.execute(status -> {
+            List<KeycloakProvisioningTask> due = taskRepository.lockDueTasks(LocalDateTime.now(), batchSize);
+            due.forEach(task -> task.setStatus(KeycloakProvisioningTask.Status.IN_PROGRESS));
+            return taskRepository.saveAll(due);
+        });
+        if (claimed == null || claimed.isEmpty()) {
+            return;
+        }
+
+        for (KeycloakProvisioningTask task : claimed) {
+            try {
+                keycloakAdminExecutor.execute(() -> process(task.getId()));
+            } catch (RejectedExecutionException e) {
+                // Executor saturated; hand the task back for the next poll
+                recordFailure(task.getId(), "Provisioning executor saturated", false);
+            }
+        }
+    }
+
+    private void process(Long taskId) {
+        KeycloakProvisioningTask task = taskRepository.findById(taskId).orElse(null);
+        if (task == null) {
+            return;
+        }
+        UserAccount user = userAccountRepository.findById(task.getUserId()).orElse(null);
+        if (user == null) {
+            complete(taskId, KeycloakProvisioningTask.Status.FAILED, "Local user no longer exists");
+            return;
+        }
+
+        try {
+            RealmResource realmResource = keycloak.realm(realm);
+            String keycloakId = user.getKeycloakId();
+            if (keycloakId == null && task.getOperation() == KeycloakProvisioningTask.Operation.DISABLE) {
+                complete(taskId, KeycloakProvisioningTask.Status.SUCCEEDED, "No linked Keycloak account to disable");
+                return;
+            }
+            if (keycloakId == null) {
+                keycloakId = createOrLink(realmResource.users(), user);
+                linkKeycloakId(user.getId(), keycloakId);
+            } else {
+                realmResource.users().get(keycloakId).update(toRepresentation(user));
+            }
+            // The update above has already disabled an inactive user's account
+            if (Boolean.TRUE.equals(user.getIsActive())) {
+                assignRole(realmResource, keycloakId, user.getRole());
+            }
+            complete(taskId, KeycloakProvisioningTask.Status.SUCCEEDED, null);
+        } catch (Exception e) {
+            logger.warn("Keycloak provisioning task {} for user {} failed", taskId, user.getId(), e);
+            recordFailure(taskId, e.getMessage(), true);
+        }
+    }
+
+    // Idempotent create: a user that already exists in Keycloak (e.g. a retried task whose
+    // earlier attempt succeeded remotely) is linked instead of duplicated
+    private String createOrLink(UsersResource users, UserAccount user) {
+        Optional<String> existing = findByUsername(users, user.getUsername());
+        if (existing.isPresent()) {
+            users.get(existing.get()).update(toRepresentation(user));
+            return existing.get();
+        }
+
+        UserRepresentation representation = toRepresentation(user);
+        representation.setUsername(user.getUsername());
+        try (Response response = users.create(representation)) {
+            if (response.getStatus() == Response.Status.CONFLICT.getStatusCode()) {
+                return findByUsername(users, user.getUsername())
+                        .orElseThrow(() -> new IllegalStateException("Keycloak reported a conflict but user was not found"));
+            }
+            return CreatedResponseUtil.getCreatedId(response);
+        }
+    }
+
+    private Optional<String> findByUsername(UsersResource users, String username) {
+        return users.searchByUsername(username, true).stream()
+                .findFirst()
+                .map(UserRepresentation::getId);
+    }
+
+    // Mapped roles that resolve to a different local role are removed before the new one is added.
+    // Left in place, a stronger role would survive a demotion and be copied back into user_accounts
+    // by the next login's sync.
+    private void assignRole(RealmResource realmResource, String keycloakId, UserAccount.UserRole role) {
+        RoleMappingResource roles = realmResource.users().get(keycloakId).roles();
+        MappingsRepresentation mappings = roles.getAll();
+
+        List<RoleRepresentation> staleRealmRoles = staleRoles(mappings.getRealmMappings(), role);
+        if (!staleRealmRoles.isEmpty()) {
+            roles.realmLevel().remove(staleRealmRoles);
+        }
+        if (mappings.getClientMappings() != null) {
+            for (Map.Entry<String, ClientMappingsRepresentation> client : mappings.getClientMappings().entrySet()) {
+                if (!roleMappingEngine.ranksClient(client.getKey())) {
+                    continue;
+                }
+                List<RoleRepresentation> staleClientRoles = staleRoles(client.getValue().getMappings(), role);
+                if (!staleClientRoles.isEmpty()) {
+                    roles.clientLevel(client.getValue().getId()).remove(staleClientRoles);
+                }
+            }
+        }
+
+        Optional<String> roleName = roleMappingEngine.keycloakRoleFor(role);
+        if (roleName.isEmpty()) {
+            return;
+        }
+        boolean alreadyAssigned = mappings.getRealmMappings() != null && mappings.getRealmMappings().stream()
+                .anyMatch(assigned -> assigned.getName().equalsIgnoreCase(roleName.get()));
+        if (alreadyAssigned) {
+            return;
+        }
+        try {
+            RoleRepresentation realmRole = realmResource.roles().get(roleName.get()).toRepresentation();
+            roles.realmLevel().add(List.of(realmRole));
+        } catch (NotFoundException e) {
+            logger.warn("Realm role '{}' does not exist; skipping role assignment", roleName.get());
+        }
+    }
+
+    private List<RoleRepresentation> staleRoles(List<RoleRepresentation> assigned, UserAccount.UserRole role) {
+        if (assigned == null) {
+            return List.of();
+        }
+        return assigned.stream()
+                .filter(candidate -> roleMappingEngine.mappedRole(candidate.getName())
+                        .filter(mapped -> mapped != role)
+                        .isPresent())
+                .toList();
+    }
+
+    private UserRepresentation toRepresentation(UserAccount user) {
+        UserRepresentation representation = new UserRepresentation();
+        representation.setEmail(user.getEmail());
+        representation.setFirstName(user.getFirstName());
+        representation.setLastName(user.getLastName());
+        representation.setEnabled(Boolean.TRUE.equals(user.getIsActive()));
+        return representation;
+    }
+
+    private void linkKeycloakId(Long userId, String keycloakId) {
+        transactionTemplate.executeWithoutResult(status -> userAccountRepository.findById(userId).ifPresent(user -> {
+            user.setKeycloakId(keycloakId);
+            userAccountRepository.save(user);
+        }));
+        userDirectoryCache.invalidate(keycloakId);
+        recipientDirectory.invalidate();
+    }
+
+    private void complete(Long taskId, KeycloakProvisioningTask.Status status, String error) {
+        transactionTemplate.executeWithoutResult(tx -> taskRepository.findById(taskId).ifPresent(task -> {
+            task.setStatus(status);
+            task.setLastError(truncate(error));
+            task.setCompletedAt(LocalDateTime.now());
+            taskRepository.save(task);
+        }));
+    }
+
+    private void recordFailure(Long taskId, String error, boolean countAttempt) {
+        transactionTemplate.executeWithoutResult(tx -> taskRepository.findById(taskId).ifPresent(task -> {
+            int attempts = countAttempt ? task.getAttempts() + 1 : task.getAttempts();
+            task.setAttempts(attempts);
+            task.setLastError(truncate(error));
+            if (attempts >= maxAttempts) {
+                task.setStatus(KeycloakProvisioningTask.Status.FAILED);
+                task.setCompletedAt(LocalDateTime.now());
+            } else {
+                task.setStatus(KeycloakProvisioningTask.Status.PENDING);
+                task.setNextAttemptAt(LocalDateTime.now().plus(backoff(attempts)));
+            }
+            taskRepository.save(task);
+        }));
+    }
+
+    // Exponential backoff: base * 2^(attempts - 1), capped at maxBackoff
+    private Duration backoff(int attempts) {
+        Duration delay = baseBackoff.multipliedBy(1L << Math.min(Math.max(attempts - 1, 0), 20));
+        return delay.compareTo(maxBackoff) > 0 ? maxBackoff : delay;
+    }
+
+    private static String truncate(String error) {
+        if (error == null || error.length() <= 1000) {
+            return error;
+        }
+        return error.substring(0, 1000);
+    }
+}
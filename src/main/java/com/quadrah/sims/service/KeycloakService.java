@@ -1,6 +1,5 @@
 package com.quadrah.sims.service;
 
-import com.quadrah.sims.model.UserAccount;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.GrantedAuthority;
 import org.springframework.security.core.context.SecurityContextHolder;
@@ -61,8 +60,8 @@ public class KeycloakService {
     }
 
     public boolean isCurrentUser(Long userId) {
-        UserAccount currentUser = userAccountService.getCurrentUser();
-        return currentUser.getId().equals(userId);
+        UserDirectoryCache.UserSnapshot currentUser = userAccountService.getCurrentUserSnapshot();
+        return currentUser.id().equals(userId);
     }
 
     private Jwt getJwt() {
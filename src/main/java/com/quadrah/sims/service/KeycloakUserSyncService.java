@@ -0,0 +1,288 @@
+package com.quadrah.sims.service;
+
+import com.quadrah.sims.config.RoleMappingEngine;
+import com.quadrah.sims.model.UserAccount;
+import org.keycloak.admin.client.Keycloak;
+import org.keycloak.admin.client.resource.RoleMappingResource;
+import org.keycloak.admin.client.resource.UsersResource;
+import org.keycloak.representations.idm.ClientMappingsRepresentation;
+import org.keycloak.representations.idm.MappingsRepresentation;
+import org.keycloak.representations.idm.RoleRepresentation;
+import org.keycloak.representations.idm.UserRepresentation;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+// Pulls every realm user and their role mappings through the Keycloak admin client and
+// upserts them into user_accounts in JDBC batches, so staff exist locally before first login.
+// A sync of a large realm takes minutes, so it runs as a background job rather than on the request.
+@Service
+public class KeycloakUserSyncService {
+
+    private static final Logger logger = LoggerFactory.getLogger(KeycloakUserSyncService.class);
+
+    private static final int MAX_TRACKED_JOBS = 20;
+
+    // Rows created locally before they had a Keycloak id are linked by username first
+    private static final String LINK_BY_USERNAME_SQL =
+            "UPDATE user_accounts SET keycloak_id = ? WHERE username = ? AND keycloak_id IS NULL";
+
+    // A user disabled in Keycloak is deactivated; a local deactivation is never undone here
+    private static final String UPSERT_SQL =
+            "INSERT INTO user_accounts (keycloak_id, username, email, first_name, last_name, role, is_active, created_at) " +
+            "VALUES (?, ?, ?, ?, ?, ?, ?, ?) " +
+            "ON CONFLICT (keycloak_id) DO UPDATE SET " +
+            "username = EXCLUDED.username, email = EXCLUDED.email, " +
+            "first_name = EXCLUDED.first_name, last_name = EXCLUDED.last_name, role = EXCLUDED.role, " +
+            "is_active = CASE WHEN EXCLUDED.is_active THEN user_accounts.is_active ELSE false END";
+
+    private final Keycloak keycloak;
+    private final String realm;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final RoleMappingEngine roleMappingEngine;
+    private final UserDirectoryCache userDirectoryCache;
+    private final RecipientDirectory recipientDirectory;
+    private final Executor keycloakAdminExecutor;
+    private final Executor keycloakSyncExecutor;
+    private final int pageSize;
+    private final int batchSize;
+
+    private final AtomicBoolean running = new AtomicBoolean(false);
+    // Most recent jobs, oldest dropped first
+    private final Map<String, SyncJob> jobs = new LinkedHashMap<>() {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, SyncJob> eldest) {
+            return size() > MAX_TRACKED_JOBS;
+        }
+    };
+
+    public KeycloakUserSyncService(Keycloak keycloak,
+                                   @Value("${keycloak.realm}") String realm,
+                                   JdbcTemplate jdbcTemplate,
+                                   TransactionTemplate transactionTemplate,
+                                   RoleMappingEngine roleMappingEngine,
+                                   UserDirectoryCache userDirectoryCache,
+                                   RecipientDirectory recipientDirectory,
+                                   @Qualifier("keycloakAdminExecutor") Executor keycloakAdminExecutor,
+                                   @Qualifier("keycloakSyncExecutor") Executor keycloakSyncExecutor,
+                                   @Value("${app.keycloak-sync.page-size:100}") int pageSize,
+                                   @Value("${app.keycloak-sync.batch-size:500}") int batchSize) {
+        this.keycloak = keycloak;
+        this.realm = realm;
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = transactionTemplate;
+        this.roleMappingEngine = roleMappingEngine;
+        this.userDirectoryCache = userDirectoryCache;
+        this.recipientDirectory = recipientDirectory;
+        this.keycloakAdminExecutor = keycloakAdminExecutor;
+        this.keycloakSyncExecutor = keycloakSyncExecutor;
+        this.pageSize = pageSize;
+        this.batchSize = batchSize;
+    }
+
+    // Starts a sync on the keycloakSyncExecutor and returns at once; the caller polls getJob(id).
+    // Jobs are tracked on the node that runs them.
+    public SyncJob startSync() {
+        if (!running.compareAndSet(false, true)) {
+            throw new IllegalStateException("A Keycloak user sync is already running.");
+        }
+        SyncJob job = SyncJob.started(UUID.randomUUID().toString());
+        record(job);
+        try {
+            keycloakSyncExecutor.execute(() -> run(job));
+        } catch (RejectedExecutionException e) {
+            synchronized (jobs) {
+                jobs.remove(job.id());
+            }
+            running.set(false);
+            throw e;
+        }
+        return job;
+    }
+
+    public Optional<SyncJob> getJob(String id) {
+        synchronized (jobs) {
+            return Optional.ofNullable(jobs.get(id));
+        }
+    }
+
+    private void run(SyncJob job) {
+        try {
+            record(job.succeeded(doSync()));
+        } catch (RuntimeException e) {
+            logger.error("Keycloak user sync {} failed", job.id(), e);
+            record(job.failed(e.getMessage() != null ? e.getMessage() : e.getClass().getSimpleName()));
+        } finally {
+            running.set(false);
+        }
+    }
+
+    private void record(SyncJob job) {
+        synchronized (jobs) {
+            jobs.put(job.id(), job);
+        }
+    }
+
+    private SyncReport doSync() {
+        long startedAt = System.nanoTime();
+        UsersResource users = keycloak.realm(realm).users();
+
+        int fetched = 0;
+        int upserted = 0;
+        int failed = 0;
+        List<Object[]> rows = new ArrayList<>();
+
+        for (int first = 0; ; first += pageSize) {
+            List<UserRepresentation> page = users.list(first, pageSize);
+            if (page.isEmpty()) {
+                break;
+            }
+            fetched += page.size();
+
+            // Role mappings are one admin call per user, so resolve the whole page concurrently
+            List<CompletableFuture<Object[]>> pending = page.stream()
+                    .map(user -> CompletableFuture.supplyAsync(() -> toRow(users, user), keycloakAdminExecutor))
+                    .toList();
+            for (CompletableFuture<Object[]> future : pending) {
+                try {
+                    rows.add(future.join());
+                } catch (Exception e) {
+                    failed++;
+                    logger.warn("Failed to read Keycloak role mappings", e);
+                }
+            }
+
+            if (rows.size() >= batchSize) {
+                BatchResult result = upsert(rows);
+                upserted += result.upserted();
+                failed += result.failed();
+                // A fresh list per batch: the one just written belongs to that batch
+                rows = new ArrayList<>();
+            }
+            if (page.size() < pageSize) {
+                break;
+            }
+        }
+
+        if (!rows.isEmpty()) {
+            BatchResult result = upsert(rows);
+            upserted += result.upserted();
+            failed += result.failed();
+        }
+
+        userDirectoryCache.invalidateAll();
+        recipientDirectory.invalidate();
+
+        long elapsedMillis = (System.nanoTime() - startedAt) / 1_000_000;
+        double usersPerSecond = elapsedMillis > 0 ? upserted * 1000.0 / elapsedMillis : upserted;
+        logger.info("Keycloak user sync: fetched {}, upserted {}, failed {} in {} ms ({} users/s)",
+                fetched, upserted, failed, elapsedMillis, String.format("%.1f", usersPerSecond));
+        return new SyncReport(fetched, upserted, failed, elapsedMillis, usersPerSecond);
+    }
+
+    private Object[] toRow(UsersResource users, UserRepresentation user) {
+        RoleMappingResource roles = users.get(user.getId()).roles();
+
+        // Effective realm roles include composites and group roles, as in the access token
+        List<String> roleNames = new ArrayList<>();
+        for (RoleRepresentation role : roles.realmLevel().listEffective()) {
+            roleNames.add(role.getName());
+        }
+        MappingsRepresentation mappings = roles.getAll();
+        if (mappings.getClientMappings() != null) {
+            for (ClientMappingsRepresentation client : mappings.getClientMappings().values()) {
+                if (roleMappingEngine.ranksClient(client.getClient()) && client.getMappings() != null) {
+                    client.getMappings().forEach(role -> roleNames.add(role.getName()));
+                }
+            }
+        }
+        UserAccount.UserRole role = roleMappingEngine.resolveRole(roleNames);
+
+        return new Object[]{
+                user.getId(),
+                user.getUsername(),
+                user.getEmail(),
+                user.getFirstName() != null ? user.getFirstName() : "",
+                user.getLastName() != null ? user.getLastName() : "",
+                role.name(),
+                !Boolean.FALSE.equals(user.isEnabled()),
+                Timestamp.valueOf(LocalDateTime.now())
+        };
+    }
+
+    private BatchResult upsert(List<Object[]> rows) {
+        List<Object[]> links = rows.stream()
+                .map(row -> new Object[]{row[0], row[1]})
+                .toList();
+        try {
+            transactionTemplate.executeWithoutResult(status -> {
+                jdbcTemplate.batchUpdate(LINK_BY_USERNAME_SQL, links);
+                jdbcTemplate.batchUpdate(UPSERT_SQL, rows);
+            });
+            return new BatchResult(rows.size(), 0);
+        } catch (DataAccessException e) {
+            // One bad row (e.g. a username owned by another Keycloak id) fails the batch; isolate it
+            logger.warn("Batch upsert of {} users failed, retrying row by row", rows.size(), e);
+            int upserted = 0;
+            for (int i = 0; i < rows.size(); i++) {
+                Object[] row = rows.get(i);
+                Object[] link = links.get(i);
+                try {
+                    transactionTemplate.executeWithoutResult(status -> {
+                        jdbcTemplate.update(LINK_BY_USERNAME_SQL, link);
+                        jdbcTemplate.update(UPSERT_SQL, row);
+                    });
+                    upserted++;
+                } catch (DataAccessException rowFailure) {
+                    logger.warn("Failed to upsert Keycloak user {}: {}", row[1], rowFailure.getMessage());
+                }
+            }
+            return new BatchResult(upserted, rows.size() - upserted);
+        }
+    }
+
+    public record SyncReport(int usersFetched, int usersUpserted, int usersFailed,
+                             long elapsedMillis, double usersPerSecond) {}
+
+    public record SyncJob(String id, Status status, Instant startedAt, Instant finishedAt,
+                          SyncReport report, String error) {
+
+        public enum Status {
+            RUNNING, SUCCEEDED, FAILED
+        }
+
+        static SyncJob started(String id) {
+            return new SyncJob(id, Status.RUNNING, Instant.now(), null, null, null);
+        }
+
+        SyncJob succeeded(SyncReport report) {
+            return new SyncJob(id, Status.SUCCEEDED, startedAt, Instant.now(), report, null);
+        }
+
+        SyncJob failed(String error) {
+            return new SyncJob(id, Status.FAILED, startedAt, Instant.now(), null, error);
+        }
+    }
+
+    private record BatchResult(int upserted, int failed) {}
+}
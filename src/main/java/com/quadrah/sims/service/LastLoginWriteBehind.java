@@ -0,0 +1,102 @@
+package com.quadrah.sims.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+// Collects last-seen timestamps per Keycloak user in memory and writes them as one batched
+// UPDATE on a timer. lastLogin only needs minute-level accuracy, so a request never pays for it.
+@Component
+public class LastLoginWriteBehind {
+
+    private static final Logger logger = LoggerFactory.getLogger(LastLoginWriteBehind.class);
+
+    private static final String UPDATE_LAST_LOGIN_SQL =
+            "UPDATE user_accounts SET last_login = ? " +
+            "WHERE keycloak_id = ? AND (last_login IS NULL OR last_login < ?)";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final Map<String, LocalDateTime> pending = new ConcurrentHashMap<>();
+
+    private final Counter coalescedWrites;
+    private final Counter flushedRows;
+    private final Timer flushTimer;
+
+    public LastLoginWriteBehind(JdbcTemplate jdbcTemplate, MeterRegistry meterRegistry) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.coalescedWrites = Counter.builder("sims.user.last_login.coalesced")
+                .description("lastLogin writes absorbed by an already pending timestamp")
+                .register(meterRegistry);
+        this.flushedRows = Counter.builder("sims.user.last_login.flushed")
+                .description("lastLogin rows written by batched flushes")
+                .register(meterRegistry);
+        this.flushTimer = Timer.builder("sims.user.last_login.flush")
+                .description("Duration of a batched lastLogin flush")
+                .register(meterRegistry);
+        meterRegistry.gauge("sims.user.last_login.pending", pending, Map::size);
+    }
+
+    public void touch(String keycloakId) {
+        if (keycloakId == null) {
+            return;
+        }
+        if (pending.put(keycloakId, LocalDateTime.now()) != null) {
+            coalescedWrites.increment();
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${app.last-login.flush-interval-ms:60000}")
+    public void flush() {
+        if (pending.isEmpty()) {
+            return;
+        }
+
+        // Drain key by key so a touch racing with the flush simply lands in the next batch
+        Map<String, LocalDateTime> drained = new HashMap<>();
+        List<Object[]> batch = new ArrayList<>();
+        for (String keycloakId : pending.keySet()) {
+            LocalDateTime seenAt = pending.remove(keycloakId);
+            if (seenAt != null) {
+                drained.put(keycloakId, seenAt);
+                Timestamp timestamp = Timestamp.valueOf(seenAt);
+                batch.add(new Object[]{timestamp, keycloakId, timestamp});
+            }
+        }
+        if (batch.isEmpty()) {
+            return;
+        }
+
+        try {
+            flushTimer.record(() -> jdbcTemplate.batchUpdate(UPDATE_LAST_LOGIN_SQL, batch));
+            flushedRows.increment(batch.size());
+            logger.debug("Flushed lastLogin for {} users", batch.size());
+        } catch (Exception e) {
+            // Put the batch back for the next flush; a newer touch that arrived meanwhile wins
+            drained.forEach((keycloakId, seenAt) -> pending.merge(keycloakId, seenAt, LastLoginWriteBehind::latest));
+            logger.error("Failed to flush lastLogin for {} users, retrying on the next flush", batch.size(), e);
+        }
+    }
+
+    private static LocalDateTime latest(LocalDateTime a, LocalDateTime b) {
+        return a.isAfter(b) ? a : b;
+    }
+
+    @PreDestroy
+    public void flushOnShutdown() {
+        flush();
+    }
+}
@@ -1,9 +1,10 @@
 package com.quadrah.sims.service;
 
+import com.quadrah.sims.dto.StudentSummary;
 import com.quadrah.sims.model.MedicalHistory;
-import com.quadrah.sims.model.Student;
 import com.quadrah.sims.repository.MedicalHistoryRepository;
 import com.quadrah.sims.repository.StudentRepository;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
@@ -15,27 +16,36 @@ public class MedicalHistoryService {
 
     private final MedicalHistoryRepository medicalHistoryRepository;
     private final StudentRepository studentRepository;
+    private final ApplicationEventPublisher eventPublisher;
 
-    public MedicalHistoryService(MedicalHistoryRepository medicalHistoryRepository, StudentRepository studentRepository) {
+    public MedicalHistoryService(MedicalHistoryRepository medicalHistoryRepository, StudentRepository studentRepository,
+                                 ApplicationEventPublisher eventPublisher) {
         this.medicalHistoryRepository = medicalHistoryRepository;
         this.studentRepository = studentRepository;
+        this.eventPublisher = eventPublisher;
     }
 
+    @Transactional(readOnly = true)
     public List<MedicalHistory> getMedicalHistoryByStudent(Long studentId) {
-        Student student = studentRepository.findById(studentId)
-                .orElseThrow(() -> new IllegalArgumentException("Student not found with id: " + studentId));
-        return medicalHistoryRepository.findByStudentAndIsActiveTrueOrderByConditionName(student);
+        if (!studentRepository.existsById(studentId)) {
+            throw new IllegalArgumentException("Student not found with id: " + studentId);
+        }
+        return medicalHistoryRepository.findByStudentIdAndIsActiveTrueOrderByConditionName(studentId);
     }
 
     public MedicalHistory createMedicalHistory(Long studentId, MedicalHistory medicalHistory) {
-        Student student = studentRepository.findById(studentId)
-                .orElseThrow(() -> new IllegalArgumentException("Student not found with id: " + studentId));
+        if (!studentRepository.existsById(studentId)) {
+            throw new IllegalArgumentException("Student not found with id: " + studentId);
+        }
 
         validateMedicalHistory(medicalHistory);
 
-        medicalHistory.setStudent(student);
+        // Only the foreign key is needed
+        medicalHistory.setStudent(studentRepository.getReferenceById(studentId));
         medicalHistory.setIsActive(true);
-        return medicalHistoryRepository.save(medicalHistory);
+        MedicalHistory saved = medicalHistoryRepository.save(medicalHistory);
+        eventPublisher.publishEvent(new StudentHealthChangedEvent(studentId));
+        return saved;
     }
 
     public MedicalHistory updateMedicalHistory(Long medicalHistoryId, MedicalHistory medicalHistoryDetails) {
@@ -50,7 +60,9 @@ public class MedicalHistoryService {
         medicalHistory.setTreatment(medicalHistoryDetails.getTreatment());
         medicalHistory.setNotes(medicalHistoryDetails.getNotes());
 
-        return medicalHistoryRepository.save(medicalHistory);
+        MedicalHistory saved = medicalHistoryRepository.save(medicalHistory);
+        eventPublisher.publishEvent(new StudentHealthChangedEvent(medicalHistory.getStudent().getId()));
+        return saved;
     }
 
     public void deactivateMedicalHistory(Long medicalHistoryId) {
@@ -59,15 +71,19 @@ public class MedicalHistoryService {
 
         medicalHistory.setIsActive(false);
         medicalHistoryRepository.save(medicalHistory);
+        eventPublisher.publishEvent(new StudentHealthChangedEvent(medicalHistory.getStudent().getId()));
     }
 
+    @Transactional(readOnly = true)
     public boolean studentHasCondition(Long studentId, String conditionName) {
-        Student student = studentRepository.findById(studentId)
-                .orElseThrow(() -> new IllegalArgumentException("Student not found with id: " + studentId));
-        return medicalHistoryRepository.existsByStudentAndConditionNameContainingIgnoreCaseAndIsActiveTrue(student, conditionName);
+        if (!studentRepository.existsById(studentId)) {
+            throw new IllegalArgumentException("Student not found with id: " + studentId);
+        }
+        return medicalHistoryRepository.existsByStudentIdAndConditionNameContainingIgnoreCaseAndIsActiveTrue(studentId, conditionName);
     }
 
-    public List<Student> getStudentsWithCondition(String conditionName) {
+    @Transactional(readOnly = true)
+    public List<StudentSummary> getStudentsWithCondition(String conditionName) {
         return medicalHistoryRepository.findStudentsByConditionName(conditionName);
     }
 
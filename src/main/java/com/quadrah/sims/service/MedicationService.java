@@ -6,6 +6,7 @@ import com.quadrah.sims.model.StudentVisit;
 import com.quadrah.sims.repository.MedicationAdministrationRepository;
 import com.quadrah.sims.repository.MedicationInventoryRepository;
 import com.quadrah.sims.repository.StudentVisitRepository;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
@@ -21,15 +22,18 @@ public class MedicationService {
     private final MedicationAdministrationRepository administrationRepository;
     private final StudentVisitRepository visitRepository;
     private final NotificationService notificationService;
+    private final ApplicationEventPublisher eventPublisher;
 
     public MedicationService(MedicationInventoryRepository inventoryRepository,
                              MedicationAdministrationRepository administrationRepository,
                              StudentVisitRepository visitRepository,
-                             NotificationService notificationService) {
+                             NotificationService notificationService,
+                             ApplicationEventPublisher eventPublisher) {
         this.inventoryRepository = inventoryRepository;
         this.administrationRepository = administrationRepository;
         this.visitRepository = visitRepository;
         this.notificationService = notificationService;
+        this.eventPublisher = eventPublisher;
     }
 
     // Medication Inventory Methods
@@ -129,7 +133,13 @@ public class MedicationService {
         }
 
         administration.setAdministrationTime(LocalDateTime.now());
-        return administrationRepository.save(administration);
+        MedicationAdministration saved = administrationRepository.save(administration);
+        // The posted visit may carry only its id, so resolve the student through it
+        if (saved.getStudentVisit() != null && saved.getStudentVisit().getId() != null) {
+            visitRepository.findStudentIdById(saved.getStudentVisit().getId())
+                    .ifPresent(studentId -> eventPublisher.publishEvent(new StudentHealthChangedEvent(studentId)));
+        }
+        return saved;
     }
 
     public List<MedicationAdministration> getMedicationAdministrationsByVisit(Long visitId) {
@@ -0,0 +1,146 @@
+package com.quadrah.sims.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Moves READ notifications older than the retention age from notifications to
+// notifications_archive. Each batch is one short transaction: a DELETE ... RETURNING feeding an
+// INSERT, over rows picked with FOR UPDATE SKIP LOCKED so it never waits on (or blocks) a
+// concurrent mark-as-read, and several nodes can run it at once.
+@Component
+public class NotificationArchiver {
+
+    private static final Logger logger = LoggerFactory.getLogger(NotificationArchiver.class);
+
+    private static final String MOVE_BATCH_SQL =
+            "WITH moved AS (" +
+            "  DELETE FROM notifications WHERE id IN (" +
+            "    SELECT id FROM notifications WHERE status = 'READ' AND created_at < ? " +
+            "    ORDER BY created_at LIMIT ? FOR UPDATE SKIP LOCKED" +
+            "  ) RETURNING id, title, message, type, user_id, related_entity_type, related_entity_id, created_at, read_at, " +
+            "    occurrence_count, last_occurred_at" +
+            ") " +
+            "INSERT INTO notifications_archive (id, title, message, type, status, user_id, related_entity_type, " +
+            "related_entity_id, created_at, read_at, occurrence_count, last_occurred_at, archived_at) " +
+            "SELECT id, title, message, type, 'ARCHIVED', user_id, related_entity_type, related_entity_id, " +
+            "created_at, read_at, occurrence_count, last_occurred_at, now() FROM moved";
+
+    private static final String TABLE_SIZE_SQL = "SELECT pg_total_relation_size(CAST(? AS regclass))";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final Duration retention;
+    private final int batchSize;
+    private final int maxBatchesPerRun;
+    private final Duration batchPause;
+
+    private final AtomicBoolean running = new AtomicBoolean();
+    private final Counter archivedRows;
+    private final AtomicLong liveTableBytes = new AtomicLong();
+    private final AtomicLong archiveTableBytes = new AtomicLong();
+
+    public NotificationArchiver(JdbcTemplate jdbcTemplate,
+                                TransactionTemplate transactionTemplate,
+                                MeterRegistry meterRegistry,
+                                @Value("${app.notifications.archive.retention:90d}") Duration retention,
+                                @Value("${app.notifications.archive.batch-size:1000}") int batchSize,
+                                @Value("${app.notifications.archive.max-batches-per-run:200}") int maxBatchesPerRun,
+                                @Value("${app.notifications.archive.batch-pause:200ms}") Duration batchPause) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = transactionTemplate;
+        this.retention = retention;
+        this.batchSize = batchSize;
+        this.maxBatchesPerRun = maxBatchesPerRun;
+        this.batchPause = batchPause;
+        this.archivedRows = Counter.builder("sims.notifications.archived")
+                .description("Notifications moved to notifications_archive")
+                .register(meterRegistry);
+        meterRegistry.gauge("sims.notifications.table.bytes",
+                Tags.of("table", "notifications"), liveTableBytes);
+        meterRegistry.gauge("sims.notifications.table.bytes",
+                Tags.of("table", "notifications_archive"), archiveTableBytes);
+    }
+
+    @Scheduled(fixedDelayString = "${app.notifications.archive.interval-ms:3600000}",
+            initialDelayString = "${app.notifications.archive.initial-delay-ms:300000}")
+    public void archive() {
+        if (!running.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            runArchival();
+        } finally {
+            running.set(false);
+        }
+    }
+
+    private void runArchival() {
+        Timestamp cutoff = Timestamp.valueOf(LocalDateTime.now().minus(retention));
+        long started = System.nanoTime();
+        long moved = 0;
+        int batches = 0;
+
+        while (batches < maxBatchesPerRun) {
+            Integer rows = transactionTemplate.execute(status -> jdbcTemplate.update(MOVE_BATCH_SQL, cutoff, batchSize));
+            int count = rows == null ? 0 : rows;
+            moved += count;
+            batches++;
+            archivedRows.increment(count);
+            if (count < batchSize) {
+                break;
+            }
+            if (!pause()) {
+                break;
+            }
+        }
+
+        double seconds = Math.max((System.nanoTime() - started) / 1_000_000_000.0, 0.001);
+        refreshTableSizes();
+        if (moved > 0) {
+            logger.info("Archived {} read notifications older than {} in {} batches ({} rows/s); " +
+                            "notifications={} bytes, notifications_archive={} bytes",
+                    moved, cutoff, batches, Math.round(moved / seconds), liveTableBytes.get(), archiveTableBytes.get());
+        } else {
+            logger.debug("No notifications to archive older than {}", cutoff);
+        }
+    }
+
+    // Gives autovacuum and live traffic room between batches
+    private boolean pause() {
+        try {
+            Thread.sleep(batchPause.toMillis());
+            return true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    private void refreshTableSizes() {
+        try {
+            liveTableBytes.set(tableSize("notifications"));
+            archiveTableBytes.set(tableSize("notifications_archive"));
+        } catch (Exception e) {
+            logger.warn("Failed to read notification table sizes", e);
+        }
+    }
+
+    private long tableSize(String table) {
+        Long bytes = jdbcTemplate.queryForObject(TABLE_SIZE_SQL, Long.class, table);
+        return bytes == null ? 0 : bytes;
+    }
+}
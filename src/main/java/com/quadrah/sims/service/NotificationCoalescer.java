@@ -0,0 +1,103 @@
+package com.quadrah.sims.service;
+
+import com.quadrah.sims.model.Notification;
+import com.quadrah.sims.model.NotificationOutbox;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.sql.PreparedStatement;
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.EnumSet;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+
+// Folds repeats of the same (type, related entity) event into the recipients' existing unread
+// notification instead of a new row per recipient: the row gets the latest text, last_occurred_at
+// and a higher occurrence_count. The window is fixed, counted from the row's created_at, which is
+// never changed: a condition that keeps recurring produces a fresh alert once per window, and the
+// row keeps its place in the feed and archive ordering.
+// Runs inside the dispatcher's fan-out transaction. A transaction-scoped advisory lock on the
+// key serialises dispatches of the same key across nodes, so two of them can't both miss the
+// existing row and insert duplicates.
+@Component
+public class NotificationCoalescer {
+
+    private static final String LOCK_SQL = "SELECT 1 FROM pg_advisory_xact_lock(hashtextextended(?, 0))";
+
+    private static final String COALESCE_SQL =
+            "UPDATE notifications SET title = ?, message = ?, last_occurred_at = ?, occurrence_count = occurrence_count + 1 " +
+            "WHERE type = ? AND related_entity_type = ? AND related_entity_id = ? AND status = 'UNREAD' " +
+            "AND created_at >= ? AND user_id = ANY(?::bigint[]) " +
+            "RETURNING id, user_id, occurrence_count, created_at";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final Duration window;
+    private final Set<Notification.NotificationType> types;
+    private final Counter suppressed;
+
+    public NotificationCoalescer(JdbcTemplate jdbcTemplate,
+                                 MeterRegistry meterRegistry,
+                                 @Value("${app.notifications.coalesce.window:15m}") Duration window,
+                                 @Value("${app.notifications.coalesce.types:LOW_STOCK,DISPOSITION_CHANGE}") String[] types) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.window = window;
+        this.types = EnumSet.noneOf(Notification.NotificationType.class);
+        Arrays.stream(types)
+                .map(String::trim)
+                .filter(type -> !type.isEmpty())
+                .map(Notification.NotificationType::valueOf)
+                .forEach(this.types::add);
+        this.suppressed = Counter.builder("sims.notifications.coalesced")
+                .description("Notifications folded into an existing unread notification instead of inserted")
+                .register(meterRegistry);
+    }
+
+    public boolean appliesTo(NotificationOutbox event) {
+        return types.contains(event.getType())
+                && event.getRelatedEntityType() != null
+                && event.getRelatedEntityId() != null
+                && !window.isZero();
+    }
+
+    // Returns recipient id -> the notification that absorbed the event; the caller inserts rows
+    // only for the remaining recipients, still under the lock
+    public Map<Long, Coalesced> coalesce(NotificationOutbox event, LocalDateTime now, Collection<Long> recipientIds) {
+        Map<Long, Coalesced> coalesced = new LinkedHashMap<>();
+        if (recipientIds.isEmpty()) {
+            return coalesced;
+        }
+
+        String key = event.getType() + ":" + event.getRelatedEntityType() + ":" + event.getRelatedEntityId();
+        jdbcTemplate.queryForObject(LOCK_SQL, Integer.class, key);
+
+        jdbcTemplate.query(connection -> {
+            PreparedStatement statement = connection.prepareStatement(COALESCE_SQL);
+            statement.setString(1, event.getTitle());
+            statement.setString(2, event.getMessage());
+            statement.setTimestamp(3, Timestamp.valueOf(now));
+            statement.setString(4, event.getType().name());
+            statement.setString(5, event.getRelatedEntityType());
+            statement.setLong(6, event.getRelatedEntityId());
+            statement.setTimestamp(7, Timestamp.valueOf(now.minus(window)));
+            statement.setArray(8, connection.createArrayOf("bigint", recipientIds.toArray()));
+            return statement;
+        }, resultSet -> {
+            coalesced.put(resultSet.getLong("user_id"),
+                    new Coalesced(resultSet.getLong("id"), resultSet.getInt("occurrence_count"),
+                            resultSet.getTimestamp("created_at").toLocalDateTime()));
+        });
+
+        suppressed.increment(coalesced.size());
+        return coalesced;
+    }
+
+    public record Coalesced(Long notificationId, int occurrenceCount, LocalDateTime createdAt) {}
+}
@@ -0,0 +1,337 @@
+package com.quadrah.sims.service;
+
+import com.quadrah.sims.dto.NotificationDTO;
+import com.quadrah.sims.model.Notification;
+import com.quadrah.sims.model.NotificationOutbox;
+import com.quadrah.sims.model.UserAccount;
+import com.quadrah.sims.repository.NotificationOutboxRepository;
+import com.quadrah.sims.repository.NotificationRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.EnumSet;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+// Drains notification_outbox: resolves recipients, writes the per-recipient rows and publishes
+// them over WebSocket, off the request thread and after the business transaction has committed.
+// Delivery is at-least-once: anything not marked DISPATCHED is retried by the sweeper.
+@Service
+public class NotificationDispatcher {
+
+    private static final Logger logger = LoggerFactory.getLogger(NotificationDispatcher.class);
+
+    private final NotificationOutboxRepository outboxRepository;
+    private final NotificationRepository notificationRepository;
+    private final NotificationFanOutWriter fanOutWriter;
+    private final NotificationCoalescer coalescer;
+    private final RecipientDirectory recipientDirectory;
+    private final NotificationPublisher publisher;
+    private final NotificationLanes lanes;
+    private final NotificationPreferenceService preferenceService;
+    private final DigestAggregator digestAggregator;
+    private final UnreadCounterService unreadCounterService;
+    private final DutyRosterIndex dutyRosterIndex;
+    private final TransactionTemplate transactionTemplate;
+    private final int batchSize;
+    private final int maxAttempts;
+    private final Duration staleAfter;
+    private final Duration retryBackoff;
+    private final Set<Notification.NotificationType> dutyRoutedTypes;
+    private final Duration ackTimeout;
+
+    public NotificationDispatcher(NotificationOutboxRepository outboxRepository,
+                                  NotificationRepository notificationRepository,
+                                  NotificationFanOutWriter fanOutWriter,
+                                  NotificationCoalescer coalescer,
+                                  RecipientDirectory recipientDirectory,
+                                  NotificationPublisher publisher,
+                                  NotificationLanes lanes,
+                                  NotificationPreferenceService preferenceService,
+                                  DigestAggregator digestAggregator,
+                                  UnreadCounterService unreadCounterService,
+                                  DutyRosterIndex dutyRosterIndex,
+                                  TransactionTemplate transactionTemplate,
+                                  @Value("${app.notifications.outbox.batch-size:100}") int batchSize,
+                                  @Value("${app.notifications.outbox.max-attempts:10}") int maxAttempts,
+                                  @Value("${app.notifications.outbox.stale-after:5m}") Duration staleAfter,
+                                  @Value("${app.notifications.outbox.retry-backoff:30s}") Duration retryBackoff,
+                                  @Value("${app.notifications.duty.types:EMERGENCY_VISIT,LOW_STOCK}") String[] dutyRoutedTypes,
+                                  @Value("${app.notifications.duty.ack-timeout:5m}") Duration ackTimeout) {
+        this.outboxRepository = outboxRepository;
+        this.notificationRepository = notificationRepository;
+        this.fanOutWriter = fanOutWriter;
+        this.coalescer = coalescer;
+        this.recipientDirectory = recipientDirectory;
+        this.publisher = publisher;
+        this.lanes = lanes;
+        this.preferenceService = preferenceService;
+        this.digestAggregator = digestAggregator;
+        this.unreadCounterService = unreadCounterService;
+        this.dutyRosterIndex = dutyRosterIndex;
+        this.transactionTemplate = transactionTemplate;
+        this.batchSize = batchSize;
+        this.maxAttempts = maxAttempts;
+        this.staleAfter = staleAfter;
+        this.retryBackoff = retryBackoff;
+        this.dutyRoutedTypes = EnumSet.noneOf(Notification.NotificationType.class);
+        Arrays.stream(dutyRoutedTypes)
+                .map(String::trim)
+                .filter(type -> !type.isEmpty())
+                .map(Notification.NotificationType::valueOf)
+                .forEach(this.dutyRoutedTypes::add);
+        this.ackTimeout = ackTimeout;
+    }
+
+    // Runs on the committing thread and only hands the event to its priority lane
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT)
+    public void onOutboxEvent(NotificationOutboxEvent event) {
+        lanes.submit(event.type(), () -> dispatch(event.outboxId()));
+    }
+
+    // Safety net for events whose after-commit dispatch was lost or shed (lane full, node restart).
+    // Due events go to their lanes highest priority first; once a lane is full the rest of its
+    // events wait for the next sweep.
+    @Scheduled(fixedDelayString = "${app.notifications.outbox.sweep-interval-ms:10000}")
+    public void sweep() {
+        transactionTemplate.executeWithoutResult(status -> outboxRepository.requeueStale(
+                LocalDateTime.now().minus(staleAfter),
+                NotificationOutbox.Status.PENDING, NotificationOutbox.Status.PROCESSING));
+
+        List<NotificationOutbox> due = new ArrayList<>(outboxRepository.findDue(
+                NotificationOutbox.Status.PENDING, LocalDateTime.now(), PageRequest.of(0, batchSize)));
+        due.sort(Comparator.comparing(event -> NotificationLanes.Lane.of(event.getType())));
+
+        Set<NotificationLanes.Lane> fullLanes = EnumSet.noneOf(NotificationLanes.Lane.class);
+        for (NotificationOutbox event : due) {
+            NotificationLanes.Lane lane = NotificationLanes.Lane.of(event.getType());
+            if (!fullLanes.contains(lane) && !lanes.submit(event.getType(), () -> dispatch(event.getId()))) {
+                fullLanes.add(lane);
+            }
+        }
+    }
+
+    public void dispatch(Long outboxId) {
+        Integer claimed = transactionTemplate.execute(status -> outboxRepository.claim(
+                outboxId, LocalDateTime.now(), NotificationOutbox.Status.PENDING, NotificationOutbox.Status.PROCESSING));
+        if (claimed == null || claimed == 0) {
+            return;
+        }
+
+        try {
+            // Rows and the DISPATCHED mark commit together, so a retry never duplicates rows
+            Deliveries deliveries = transactionTemplate.execute(status -> {
+                NotificationOutbox event = outboxRepository.findById(outboxId)
+                        .orElseThrow(() -> new IllegalStateException("Outbox event disappeared: " + outboxId));
+                Deliveries planned = fanOut(event);
+                event.setStatus(NotificationOutbox.Status.DISPATCHED);
+                event.setDispatchedAt(LocalDateTime.now());
+                event.setLastError(null);
+                outboxRepository.save(event);
+                return planned;
+            });
+            if (deliveries != null) {
+                publish(deliveries);
+                lanes.recordLatency(deliveries.type(), deliveries.enqueuedAt());
+            }
+        } catch (Exception e) {
+            logger.error("Failed to dispatch notification outbox event {}", outboxId, e);
+            recordFailure(outboxId, e.getMessage());
+        }
+    }
+
+    // Roles whose members all receive this type; they get a single broadcast on the role topic
+    private static List<UserAccount.UserRole> broadcastRoles(Notification.NotificationType type) {
+        return switch (type) {
+            case EMERGENCY_VISIT, LOW_STOCK -> List.of(UserAccount.UserRole.NURSE, UserAccount.UserRole.ADMIN);
+            case DISPOSITION_CHANGE, SYSTEM_ALERT -> List.of(UserAccount.UserRole.ADMIN);
+            case STUDENT_CHECKUP, DIGEST -> List.of();
+        };
+    }
+
+    // Persists one row per recipient in a single statement and plans the WebSocket deliveries:
+    // one broadcast per role, plus a user-destination push for a direct recipient outside those roles.
+    // Coalescable events first fold into the recipients' recent unread rows; only the rest get new ones.
+    // For digestible types, digest-mode users are left to the DigestAggregator and everyone else is
+    // pushed individually, since a role broadcast would also reach the digest users.
+    // Duty-routed types go only to the role members on shift, pushed individually, with an escalation
+    // queued for the rest of the role; with nobody on shift they fall back to the whole role. A repeat
+    // that coalesces into the on-shift staff's unread rows is neither pushed nor escalated again.
+    private Deliveries fanOut(NotificationOutbox event) {
+        LocalDateTime createdAt = LocalDateTime.now();
+        // An escalation counts as enqueued once its acknowledgement timeout has run out
+        LocalDateTime enqueuedAt = event.getEscalationLevel() > 0 ? event.getAvailableAt() : event.getCreatedAt();
+        List<UserAccount.UserRole> roles = broadcastRoles(event.getType());
+        List<RecipientDirectory.Recipient> recipients = new ArrayList<>(
+                recipientDirectory.getRecipients(roles.toArray(UserAccount.UserRole[]::new)));
+        boolean targeted = false;
+        Set<Long> onShiftIds = Set.of();
+        if (event.getEscalationLevel() > 0) {
+            if (isAcknowledged(event)) {
+                logger.debug("Outbox event {} acknowledged before escalation", event.getId());
+                return new Deliveries(event.getType(), enqueuedAt, List.of(), List.of(), null,
+                        List.of(), List.of(), event.getTitle(), event.getMessage());
+            }
+            Set<Long> alreadyNotified = new HashSet<>(notificationRepository.findRecipientIdsNotifiedSince(
+                    event.getType(), event.getRelatedEntityType(), event.getRelatedEntityId(), event.getAlertedAt()));
+            recipients.removeIf(recipient -> alreadyNotified.contains(recipient.id()));
+            targeted = true;
+        } else if (isDutyRouted(event)) {
+            Set<Long> onDuty = dutyRosterIndex.onDutyAt(createdAt);
+            List<RecipientDirectory.Recipient> onShift = recipients.stream()
+                    .filter(recipient -> onDuty.contains(recipient.id())).toList();
+            if (!onShift.isEmpty()) {
+                recipients = new ArrayList<>(onShift);
+                targeted = true;
+                onShiftIds = new HashSet<>(onShift.stream().map(RecipientDirectory.Recipient::id).toList());
+            }
+        }
+        RecipientDirectory.Recipient direct = event.getDirectRecipientId() == null ? null
+                : recipientDirectory.getRecipient(event.getDirectRecipientId()).orElse(null);
+        if (direct != null) {
+            recipients.add(direct);
+        }
+        recipients = RecipientDirectory.distinct(recipients);
+
+        boolean digestible = preferenceService.isDigestible(event.getType());
+        List<DigestEntry> digests = new ArrayList<>();
+        if (digestible) {
+            List<RecipientDirectory.Recipient> immediate = new ArrayList<>(recipients.size());
+            for (RecipientDirectory.Recipient recipient : recipients) {
+                preferenceService.digestInterval(recipient.id()).ifPresentOrElse(
+                        interval -> digests.add(new DigestEntry(recipient, interval)),
+                        () -> immediate.add(recipient));
+            }
+            recipients = immediate;
+        }
+        List<Long> recipientIds = recipients.stream().map(RecipientDirectory.Recipient::id).toList();
+
+        Map<Long, NotificationCoalescer.Coalesced> coalesced = coalescer.appliesTo(event)
+                ? coalescer.coalesce(event, createdAt, recipientIds)
+                : Map.of();
+        Map<Long, Long> notificationIds = fanOutWriter.insert(
+                event.getTitle(), event.getMessage(), event.getType(),
+                event.getRelatedEntityType(), event.getRelatedEntityId(), createdAt,
+                recipientIds.stream().filter(id -> !coalesced.containsKey(id)).toList()
+        );
+        if (onShiftIds.stream().anyMatch(notificationIds::containsKey)) {
+            scheduleEscalation(event, createdAt);
+        }
+
+        // Role broadcasts carry no id or recipient; clients reload their own rows when needed.
+        // A repeat that every recipient already has unread is not re-broadcast.
+        List<UserAccount.UserRole> broadcastTo = digestible || targeted || notificationIds.isEmpty() ? List.of() : roles;
+        NotificationDTO broadcast = new NotificationDTO(toNotification(event, null, createdAt), null);
+
+        List<UserPush> userPushes = new ArrayList<>();
+        for (RecipientDirectory.Recipient recipient : recipients) {
+            // Role members are covered by the broadcast (or, for a coalesced repeat, deliberately not re-alerted)
+            if (!digestible && !targeted && roles.contains(recipient.role())) {
+                continue;
+            }
+            // On-shift staff already hold the unread row a duty-routed repeat folded into
+            if (onShiftIds.contains(recipient.id()) && !notificationIds.containsKey(recipient.id())) {
+                continue;
+            }
+            Notification notification = null;
+            if (notificationIds.containsKey(recipient.id())) {
+                notification = toNotification(event, notificationIds.get(recipient.id()), createdAt);
+            } else if (coalesced.containsKey(recipient.id())) {
+                NotificationCoalescer.Coalesced existing = coalesced.get(recipient.id());
+                notification = toNotification(event, existing.notificationId(), existing.createdAt());
+                notification.setOccurrenceCount(existing.occurrenceCount());
+                notification.setLastOccurredAt(createdAt);
+            }
+            if (notification != null) {
+                userPushes.add(new UserPush(recipient, new NotificationDTO(notification, recipient.toUserDTO())));
+            }
+        }
+        // Coalesced rows were already unread, so only new rows move the unread counters
+        return new Deliveries(event.getType(), enqueuedAt, notificationIds.keySet(),
+                broadcastTo, broadcast, userPushes, digests, event.getTitle(), event.getMessage());
+    }
+
+    private boolean isDutyRouted(NotificationOutbox event) {
+        return dutyRoutedTypes.contains(event.getType()) && event.getRelatedEntityId() != null;
+    }
+
+    // Queued in the same transaction as the alert's rows; the sweeper picks it up once the timeout passes.
+    // One open escalation per alert is enough: it reaches everyone not notified since the first alert.
+    private void scheduleEscalation(NotificationOutbox event, LocalDateTime alertedAt) {
+        if (outboxRepository.existsOpenEscalation(event.getType(), event.getRelatedEntityType(), event.getRelatedEntityId(),
+                EnumSet.of(NotificationOutbox.Status.PENDING, NotificationOutbox.Status.PROCESSING))) {
+            return;
+        }
+        NotificationOutbox escalation = new NotificationOutbox(event.getType(), event.getTitle(), event.getMessage(),
+                event.getRelatedEntityType(), event.getRelatedEntityId());
+        escalation.setEscalationLevel(event.getEscalationLevel() + 1);
+        escalation.setAlertedAt(alertedAt);
+        escalation.setAvailableAt(alertedAt.plus(ackTimeout));
+        outboxRepository.save(escalation);
+    }
+
+    private boolean isAcknowledged(NotificationOutbox event) {
+        return event.getRelatedEntityId() == null || event.getAlertedAt() == null
+                || notificationRepository.existsReadSince(event.getType(), event.getRelatedEntityType(),
+                        event.getRelatedEntityId(), event.getAlertedAt());
+    }
+
+    private static Notification toNotification(NotificationOutbox event, Long id, LocalDateTime createdAt) {
+        Notification notification = new Notification(event.getTitle(), event.getMessage(), event.getType(), null);
+        notification.setId(id);
+        notification.setRelatedEntityType(event.getRelatedEntityType());
+        notification.setRelatedEntityId(event.getRelatedEntityId());
+        notification.setCreatedAt(createdAt);
+        return notification;
+    }
+
+    private void publish(Deliveries deliveries) {
+        unreadCounterService.increment(deliveries.recipientIds());
+        deliveries.roles().forEach(role -> publisher.publishToRole(role, deliveries.broadcast()));
+        deliveries.userPushes().forEach(push -> publisher.publishToUser(push.recipient(), push.notification()));
+        deliveries.digests().forEach(digest -> digestAggregator.add(digest.recipient(), digest.interval(),
+                deliveries.type(), deliveries.title(), deliveries.message()));
+    }
+
+    private void recordFailure(Long outboxId, String error) {
+        try {
+            transactionTemplate.executeWithoutResult(status -> outboxRepository.findById(outboxId).ifPresent(event -> {
+                event.setLastError(error != null && error.length() > 1000 ? error.substring(0, 1000) : error);
+                if (event.getAttempts() >= maxAttempts) {
+                    event.setStatus(NotificationOutbox.Status.FAILED);
+                } else {
+                    event.setStatus(NotificationOutbox.Status.PENDING);
+                    event.setAvailableAt(LocalDateTime.now().plus(retryBackoff.multipliedBy(event.getAttempts())));
+                }
+                outboxRepository.save(event);
+            }));
+        } catch (Exception e) {
+            // Left PROCESSING; the stale requeue picks it up later
+            logger.error("Failed to record dispatch failure for outbox event {}", outboxId, e);
+        }
+    }
+
+    private record UserPush(RecipientDirectory.Recipient recipient, NotificationDTO notification) {}
+
+    private record DigestEntry(RecipientDirectory.Recipient recipient, Duration interval) {}
+
+    private record Deliveries(Notification.NotificationType type, LocalDateTime enqueuedAt,
+                              Collection<Long> recipientIds, List<UserAccount.UserRole> roles,
+                              NotificationDTO broadcast, List<UserPush> userPushes,
+                              List<DigestEntry> digests, String title, String message) {}
+}
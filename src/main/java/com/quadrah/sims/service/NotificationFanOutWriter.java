@@ -0,0 +1,60 @@
+package com.quadrah.sims.service;
+
+import com.quadrah.sims.model.Notification;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.sql.PreparedStatement;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+// Persists one notification per recipient with a single set-based INSERT ... SELECT over the
+// recipient id array. Notification uses IDENTITY ids, so Hibernate would otherwise issue one
+// INSERT round trip per recipient.
+@Component
+public class NotificationFanOutWriter {
+
+    private static final String FAN_OUT_SQL =
+            "INSERT INTO notifications (title, message, type, status, user_id, related_entity_type, related_entity_id, created_at) " +
+            "SELECT ?, ?, ?, 'UNREAD', r.user_id, ?, ?, ? FROM unnest(?::bigint[]) AS r(user_id) " +
+            "RETURNING id, user_id";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public NotificationFanOutWriter(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    // Runs in the caller's transaction; returns recipient id -> generated notification id
+    public Map<Long, Long> insert(String title, String message, Notification.NotificationType type,
+                                  String relatedEntityType, Long relatedEntityId,
+                                  LocalDateTime createdAt, Collection<Long> recipientIds) {
+        Map<Long, Long> notificationIds = new LinkedHashMap<>();
+        if (recipientIds.isEmpty()) {
+            return notificationIds;
+        }
+
+        jdbcTemplate.query(connection -> {
+            PreparedStatement statement = connection.prepareStatement(FAN_OUT_SQL);
+            statement.setString(1, title);
+            statement.setString(2, message);
+            statement.setString(3, type.name());
+            statement.setString(4, relatedEntityType);
+            if (relatedEntityId != null) {
+                statement.setLong(5, relatedEntityId);
+            } else {
+                statement.setNull(5, Types.BIGINT);
+            }
+            statement.setTimestamp(6, Timestamp.valueOf(createdAt));
+            statement.setArray(7, connection.createArrayOf("bigint", recipientIds.toArray()));
+            return statement;
+        }, resultSet -> {
+            notificationIds.put(resultSet.getLong("user_id"), resultSet.getLong("id"));
+        });
+        return notificationIds;
+    }
+}
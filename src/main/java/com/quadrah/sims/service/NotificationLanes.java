@@ -0,0 +1,134 @@
+package com.quadrah.sims.service;
+
+import com.quadrah.sims.model.Notification;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+// Priority lanes for outbox dispatch. Each lane has its own bounded worker pool, so a burst of
+// low-stock or checkup events can't queue in front of an emergency. While emergencies are in
+// flight, the lower lanes hold back before starting new work (up to emergency-yield) so the
+// emergency gets the DB connections and broker first. When a lower lane's queue is full the
+// event is shed: it stays PENDING in the outbox and the sweeper delivers it later.
+@Component
+public class NotificationLanes {
+
+    public enum Lane {
+        EMERGENCY, STANDARD, BULK;
+
+        public static Lane of(Notification.NotificationType type) {
+            return switch (type) {
+                case EMERGENCY_VISIT -> EMERGENCY;
+                case DISPOSITION_CHANGE, SYSTEM_ALERT -> STANDARD;
+                case LOW_STOCK, STUDENT_CHECKUP, DIGEST -> BULK;
+            };
+        }
+    }
+
+    private static final Logger logger = LoggerFactory.getLogger(NotificationLanes.class);
+
+    private final Map<Lane, ThreadPoolTaskExecutor> executors = new EnumMap<>(Lane.class);
+    private final Map<Lane, Timer> latency = new EnumMap<>(Lane.class);
+    private final Map<Lane, Counter> shed = new EnumMap<>(Lane.class);
+    private final Duration emergencyYield;
+
+    private final AtomicInteger emergenciesInFlight = new AtomicInteger();
+    private final Object emergencyMonitor = new Object();
+
+    public NotificationLanes(@Qualifier("emergencyNotificationExecutor") ThreadPoolTaskExecutor emergencyExecutor,
+                             @Qualifier("standardNotificationExecutor") ThreadPoolTaskExecutor standardExecutor,
+                             @Qualifier("bulkNotificationExecutor") ThreadPoolTaskExecutor bulkExecutor,
+                             MeterRegistry meterRegistry,
+                             @Value("${app.notifications.lanes.emergency-yield:2s}") Duration emergencyYield) {
+        this.emergencyYield = emergencyYield;
+        executors.put(Lane.EMERGENCY, emergencyExecutor);
+        executors.put(Lane.STANDARD, standardExecutor);
+        executors.put(Lane.BULK, bulkExecutor);
+
+        for (Lane lane : Lane.values()) {
+            Tags tags = Tags.of("lane", lane.name().toLowerCase());
+            meterRegistry.gauge("sims.notifications.lane.queue", tags, executors.get(lane),
+                    ThreadPoolTaskExecutor::getQueueSize);
+            latency.put(lane, Timer.builder("sims.notifications.lane.latency")
+                    .tags(tags)
+                    .description("Time from outbox write to WebSocket/SSE publish")
+                    .publishPercentiles(0.5, 0.95, 0.99)
+                    .register(meterRegistry));
+            shed.put(lane, Counter.builder("sims.notifications.lane.shed")
+                    .tags(tags)
+                    .description("Events left to the outbox sweeper because the lane was full")
+                    .register(meterRegistry));
+        }
+    }
+
+    // Returns false if the lane is full; the event then waits in the outbox for the sweeper
+    public boolean submit(Notification.NotificationType type, Runnable task) {
+        Lane lane = Lane.of(type);
+        try {
+            executors.get(lane).execute(() -> run(lane, task));
+            return true;
+        } catch (RejectedExecutionException e) {
+            shed.get(lane).increment();
+            logger.debug("{} notification lane is full, leaving event to the outbox sweeper", lane);
+            return false;
+        }
+    }
+
+    public void recordLatency(Notification.NotificationType type, LocalDateTime enqueuedAt) {
+        Duration elapsed = Duration.between(enqueuedAt, LocalDateTime.now());
+        if (!elapsed.isNegative()) {
+            latency.get(Lane.of(type)).record(elapsed);
+        }
+    }
+
+    private void run(Lane lane, Runnable task) {
+        if (lane != Lane.EMERGENCY) {
+            yieldToEmergencies();
+            task.run();
+            return;
+        }
+
+        emergenciesInFlight.incrementAndGet();
+        try {
+            task.run();
+        } finally {
+            if (emergenciesInFlight.decrementAndGet() == 0) {
+                synchronized (emergencyMonitor) {
+                    emergencyMonitor.notifyAll();
+                }
+            }
+        }
+    }
+
+    private void yieldToEmergencies() {
+        long deadline = System.nanoTime() + emergencyYield.toNanos();
+        synchronized (emergencyMonitor) {
+            while (emergenciesInFlight.get() > 0) {
+                long remainingMillis = (deadline - System.nanoTime()) / 1_000_000;
+                if (remainingMillis <= 0) {
+                    return;
+                }
+                try {
+                    emergencyMonitor.wait(remainingMillis);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+            }
+        }
+    }
+}
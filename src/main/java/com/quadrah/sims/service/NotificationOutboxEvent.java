@@ -0,0 +1,6 @@
+package com.quadrah.sims.service;
+
+import com.quadrah.sims.model.Notification;
+
+// Published when an outbox row is written; handled once the business transaction commits
+public record NotificationOutboxEvent(Long outboxId, Notification.NotificationType type) {}
@@ -0,0 +1,124 @@
+package com.quadrah.sims.service;
+
+import com.quadrah.sims.model.Notification;
+import com.quadrah.sims.model.NotificationPreference;
+import com.quadrah.sims.repository.NotificationPreferenceRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+
+// Delivery preferences. Digest users are held in memory (one query per reload) so the
+// dispatcher can split recipients without a lookup per event.
+@Service
+@Transactional
+public class NotificationPreferenceService {
+
+    private final NotificationPreferenceRepository preferenceRepository;
+    private final Set<Notification.NotificationType> digestibleTypes;
+    private final int minIntervalMinutes;
+    private final int maxIntervalMinutes;
+    private final Duration ttl;
+
+    private volatile DigestUsers digestUsers;
+
+    public NotificationPreferenceService(NotificationPreferenceRepository preferenceRepository,
+                                         @Value("${app.notifications.digest.types:STUDENT_CHECKUP,DISPOSITION_CHANGE}") String[] digestibleTypes,
+                                         @Value("${app.notifications.digest.min-interval-minutes:5}") int minIntervalMinutes,
+                                         @Value("${app.notifications.digest.max-interval-minutes:1440}") int maxIntervalMinutes,
+                                         @Value("${app.notifications.preferences.ttl:5m}") Duration ttl) {
+        this.preferenceRepository = preferenceRepository;
+        this.digestibleTypes = EnumSet.noneOf(Notification.NotificationType.class);
+        Arrays.stream(digestibleTypes)
+                .map(String::trim)
+                .filter(type -> !type.isEmpty())
+                .map(Notification.NotificationType::valueOf)
+                .forEach(this.digestibleTypes::add);
+        this.minIntervalMinutes = minIntervalMinutes;
+        this.maxIntervalMinutes = maxIntervalMinutes;
+        this.ttl = ttl;
+    }
+
+    public boolean isDigestible(Notification.NotificationType type) {
+        return digestibleTypes.contains(type);
+    }
+
+    // Digest window for the user, or empty if they get notifications immediately
+    @Transactional(propagation = Propagation.SUPPORTS)
+    public Optional<Duration> digestInterval(Long userId) {
+        return Optional.ofNullable(current().intervals().get(userId));
+    }
+
+    @Transactional(readOnly = true)
+    public NotificationPreference getPreference(Long userId) {
+        return preferenceRepository.findByUserId(userId).orElseGet(() -> {
+            NotificationPreference preference = new NotificationPreference();
+            preference.setUserId(userId);
+            return preference;
+        });
+    }
+
+    public NotificationPreference updatePreference(Long userId, NotificationPreference details) {
+        if (details.getDeliveryMode() == null) {
+            throw new IllegalArgumentException("Delivery mode is required");
+        }
+        Integer interval = details.getDigestIntervalMinutes();
+        if (details.getDeliveryMode() == NotificationPreference.DeliveryMode.DIGEST
+                && (interval == null || interval < minIntervalMinutes || interval > maxIntervalMinutes)) {
+            throw new IllegalArgumentException(String.format(
+                    "Digest interval must be between %d and %d minutes", minIntervalMinutes, maxIntervalMinutes));
+        }
+
+        NotificationPreference preference = preferenceRepository.findByUserId(userId).orElseGet(() -> {
+            NotificationPreference created = new NotificationPreference();
+            created.setUserId(userId);
+            return created;
+        });
+        preference.setDeliveryMode(details.getDeliveryMode());
+        if (interval != null) {
+            preference.setDigestIntervalMinutes(interval);
+        }
+        NotificationPreference saved = preferenceRepository.save(preference);
+        invalidateAfterCommit();
+        return saved;
+    }
+
+    private DigestUsers current() {
+        DigestUsers snapshot = digestUsers;
+        if (snapshot == null || snapshot.loadedAt().plus(ttl).isBefore(Instant.now())) {
+            Map<Long, Duration> intervals = new HashMap<>();
+            for (NotificationPreference preference :
+                    preferenceRepository.findByDeliveryMode(NotificationPreference.DeliveryMode.DIGEST)) {
+                intervals.put(preference.getUserId(), Duration.ofMinutes(preference.getDigestIntervalMinutes()));
+            }
+            snapshot = new DigestUsers(Map.copyOf(intervals), Instant.now());
+            digestUsers = snapshot;
+        }
+        return snapshot;
+    }
+
+    private void invalidateAfterCommit() {
+        digestUsers = null;
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    digestUsers = null;
+                }
+            });
+        }
+    }
+
+    private record DigestUsers(Map<Long, Duration> intervals, Instant loadedAt) {}
+}
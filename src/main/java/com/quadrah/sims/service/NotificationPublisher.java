@@ -0,0 +1,68 @@
+package com.quadrah.sims.service;
+
+import com.quadrah.sims.config.WebSocketConfig;
+import com.quadrah.sims.dto.NotificationDTO;
+import com.quadrah.sims.model.UserAccount;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.stereotype.Component;
+
+// Real-time delivery. Role-wide alerts are converted once and broadcast by the broker to every
+// subscriber of the role topic; per-user messages use user destinations, which resolve to the
+// sessions of the principal (the Keycloak subject). Everything is mirrored to NotificationStream
+// for SSE clients.
+@Component
+public class NotificationPublisher {
+
+    public static final String NOTIFICATION_EVENT = "notifications";
+
+    private static final Logger logger = LoggerFactory.getLogger(NotificationPublisher.class);
+
+    private final SimpMessagingTemplate messagingTemplate;
+    private final NotificationStream stream;
+
+    public NotificationPublisher(SimpMessagingTemplate messagingTemplate, NotificationStream stream) {
+        this.messagingTemplate = messagingTemplate;
+        this.stream = stream;
+    }
+
+    public void publishToRole(UserAccount.UserRole role, NotificationDTO notificationDTO) {
+        stream.publish(null, role, NOTIFICATION_EVENT, notificationDTO);
+        try {
+            messagingTemplate.convertAndSend(WebSocketConfig.ROLE_TOPIC_PREFIX + role.name(), notificationDTO);
+            logger.debug("Broadcast notification to role {}: {}", role, notificationDTO.getTitle());
+        } catch (Exception e) {
+            logger.error("Failed to broadcast notification to role {}", role, e);
+        }
+    }
+
+    public void publishToAll(NotificationDTO notificationDTO) {
+        stream.publish(null, null, NOTIFICATION_EVENT, notificationDTO);
+        try {
+            messagingTemplate.convertAndSend(WebSocketConfig.BROADCAST_TOPIC, notificationDTO);
+            logger.debug("Broadcast notification to all users: {}", notificationDTO.getTitle());
+        } catch (Exception e) {
+            logger.error("Failed to broadcast notification to all users", e);
+        }
+    }
+
+    public void publishToUser(RecipientDirectory.Recipient recipient, NotificationDTO notificationDTO) {
+        sendToUser(recipient, WebSocketConfig.USER_NOTIFICATION_QUEUE, notificationDTO);
+    }
+
+    public void sendToUser(RecipientDirectory.Recipient recipient, String destination, Object payload) {
+        // SSE event name is the last destination segment, e.g. "notifications" or "unread-count"
+        stream.publish(recipient.id(), null, destination.substring(destination.lastIndexOf('/') + 1), payload);
+        if (recipient.keycloakId() == null) {
+            // Not linked to Keycloak yet, so there is no principal that could be connected
+            return;
+        }
+        try {
+            messagingTemplate.convertAndSendToUser(recipient.keycloakId(), destination, payload);
+            logger.debug("Sent {} to user {}", destination, recipient.id());
+        } catch (Exception e) {
+            logger.error("Failed to send {} to user {}", destination, recipient.id(), e);
+        }
+    }
+}
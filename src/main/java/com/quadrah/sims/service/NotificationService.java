@@ -1,16 +1,27 @@
 package com.quadrah.sims.service;
 
 import com.quadrah.sims.dto.NotificationDTO;
+import com.quadrah.sims.dto.NotificationFeedPage;
 import com.quadrah.sims.model.*;
+import com.quadrah.sims.repository.ArchivedNotificationRepository;
+import com.quadrah.sims.repository.NotificationOutboxRepository;
 import com.quadrah.sims.repository.NotificationRepository;
 import com.quadrah.sims.repository.StudentRepository;
 import com.quadrah.sims.repository.UserAccountRepository;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
-import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Base64;
 import java.util.List;
 import java.util.stream.Collectors;
 
@@ -19,20 +30,41 @@ import java.util.stream.Collectors;
 public class NotificationService {
 
     private final NotificationRepository notificationRepository;
+    private final ArchivedNotificationRepository archivedNotificationRepository;
     private final UserAccountRepository userAccountRepository;
     private final StudentRepository studentRepository;
-    private final SimpMessagingTemplate messagingTemplate;
+    private final NotificationOutboxRepository outboxRepository;
+    private final ApplicationEventPublisher eventPublisher;
+    private final UnreadCounterService unreadCounterService;
+    private final BroadcastNotificationService broadcastService;
+    private final int feedDefaultLimit;
+    private final int feedMaxLimit;
+    private final Duration sweepGrace;
 
     private static final Logger logger = LoggerFactory.getLogger(NotificationService.class);
 
     public NotificationService(NotificationRepository notificationRepository,
+                               ArchivedNotificationRepository archivedNotificationRepository,
                                UserAccountRepository userAccountRepository,
                                StudentRepository studentRepository,
-                               SimpMessagingTemplate messagingTemplate) {
+                               NotificationOutboxRepository outboxRepository,
+                               ApplicationEventPublisher eventPublisher,
+                               UnreadCounterService unreadCounterService,
+                               BroadcastNotificationService broadcastService,
+                               @Value("${app.notifications.outbox.sweep-grace:30s}") Duration sweepGrace,
+                               @Value("${app.notifications.feed.default-limit:20}") int feedDefaultLimit,
+                               @Value("${app.notifications.feed.max-limit:100}") int feedMaxLimit) {
         this.notificationRepository = notificationRepository;
+        this.archivedNotificationRepository = archivedNotificationRepository;
         this.userAccountRepository = userAccountRepository;
         this.studentRepository = studentRepository;
-        this.messagingTemplate = messagingTemplate;
+        this.outboxRepository = outboxRepository;
+        this.eventPublisher = eventPublisher;
+        this.unreadCounterService = unreadCounterService;
+        this.broadcastService = broadcastService;
+        this.sweepGrace = sweepGrace;
+        this.feedDefaultLimit = feedDefaultLimit;
+        this.feedMaxLimit = feedMaxLimit;
     }
 
     public void notifyEmergencyVisit(StudentVisit visit) {
@@ -48,19 +80,9 @@ public class NotificationService {
                 visit.getReason()
         );
 
-        // Notify all nurses and admins
-        List<UserAccount> recipients = userAccountRepository.findByRoleIn(
-                List.of(UserAccount.UserRole.NURSE, UserAccount.UserRole.ADMIN)
-        );
-
-        for (UserAccount recipient : recipients) {
-            Notification notification = createNotification(
-                    title, message, Notification.NotificationType.EMERGENCY_VISIT,
-                    recipient, "StudentVisit", visit.getId()
-            );
-
-            sendRealTimeNotification(recipient, notification);
-        }
+        // Dispatcher notifies all active nurses and admins
+        enqueue(new NotificationOutbox(Notification.NotificationType.EMERGENCY_VISIT, title, message,
+                "StudentVisit", visit.getId()), null);
 
         logger.info("EMERGENCY: Visit #{} for student {} {}",
                 visit.getId(), student.getFirstName(), student.getLastName());
@@ -77,18 +99,9 @@ public class NotificationService {
                 visit.getDisposition()
         );
 
-        // Notify the nurse who created the visit and admins
-        List<UserAccount> recipients = userAccountRepository.findByRole(UserAccount.UserRole.ADMIN);
-        recipients.add(visit.getNurse());
-
-        for (UserAccount recipient : recipients) {
-            Notification notification = createNotification(
-                    title, message, Notification.NotificationType.DISPOSITION_CHANGE,
-                    recipient, "StudentVisit", visit.getId()
-            );
-
-            sendRealTimeNotification(recipient, notification);
-        }
+        // Dispatcher notifies admins plus the nurse who created the visit
+        enqueue(new NotificationOutbox(Notification.NotificationType.DISPOSITION_CHANGE, title, message,
+                "StudentVisit", visit.getId()), visit.getNurse().getId());
 
         logger.info("Disposition updated for Visit #{}: {}", visit.getId(), visit.getDisposition());
     }
@@ -109,19 +122,9 @@ public class NotificationService {
                 medication.getMinimumStock()
         );
 
-        // Notify nurses and admins
-        List<UserAccount> recipients = userAccountRepository.findByRoleIn(
-                List.of(UserAccount.UserRole.NURSE, UserAccount.UserRole.ADMIN)
-        );
-
-        for (UserAccount recipient : recipients) {
-            Notification notification = createNotification(
-                    title, message, Notification.NotificationType.LOW_STOCK,
-                    recipient, "MedicationInventory", medication.getId()
-            );
-
-            sendRealTimeNotification(recipient, notification);
-        }
+        // Dispatcher notifies active nurses and admins
+        enqueue(new NotificationOutbox(Notification.NotificationType.LOW_STOCK, title, message,
+                "MedicationInventory", medication.getId()), null);
 
         logger.info("LOW STOCK: {} (Current: {}, Minimum: {})",
                 medication.getMedicationName(), medication.getCurrentStock(), medication.getMinimumStock());
@@ -134,35 +137,18 @@ public class NotificationService {
                 student.getFirstName(), student.getLastName(), student.getGradeLevel()
         );
 
-        Notification notification = createNotification(
-                title, message, Notification.NotificationType.STUDENT_CHECKUP,
-                nurse, "Student", student.getId()
-        );
-
-        sendRealTimeNotification(nurse, notification);
-    }
-
-    private Notification createNotification(String title, String message,
-                                            Notification.NotificationType type,
-                                            UserAccount recipient,
-                                            String relatedEntityType, Long relatedEntityId) {
-        Notification notification = new Notification(title, message, type, recipient);
-        notification.setRelatedEntityType(relatedEntityType);
-        notification.setRelatedEntityId(relatedEntityId);
-
-        return notificationRepository.save(notification);
+        enqueue(new NotificationOutbox(Notification.NotificationType.STUDENT_CHECKUP, title, message,
+                "Student", student.getId()), nurse.getId());
     }
 
-    // Real-time WebSocket notification
-    private void sendRealTimeNotification(UserAccount recipient, Notification notification) {
-        try {
-            String destination = "/topic/notifications/" + recipient.getId();
-            NotificationDTO notificationDTO = new NotificationDTO(notification);
-            messagingTemplate.convertAndSend(destination, notificationDTO);
-            logger.debug("Sent real-time notification to user {}: {}", recipient.getId(), notificationDTO.getTitle());
-        } catch (Exception e) {
-            logger.error("Failed to send real-time notification to user {}", recipient.getId(), e);
-        }
+    // Records the event in the caller's transaction; NotificationDispatcher fans it out after commit.
+    // The sweeper only looks at it once the grace period has passed, by which time the
+    // after-commit dispatch has normally claimed it already.
+    private void enqueue(NotificationOutbox event, Long directRecipientId) {
+        event.setDirectRecipientId(directRecipientId);
+        event.setAvailableAt(LocalDateTime.now().plus(sweepGrace));
+        NotificationOutbox saved = outboxRepository.save(event);
+        eventPublisher.publishEvent(new NotificationOutboxEvent(saved.getId(), saved.getType()));
     }
 
     // Service methods for managing notifications - UPDATED TO RETURN DTOS
@@ -174,9 +160,10 @@ public class NotificationService {
             List<Notification> notifications = notificationRepository.findByRecipientOrderByCreatedAtDesc(user);
 
             // Convert to DTOs to avoid proxy serialization issues
-            return notifications.stream()
+            List<NotificationDTO> personal = notifications.stream()
                     .map(NotificationDTO::new)
                     .collect(Collectors.toList());
+            return withBroadcasts(personal, broadcastService.getBroadcastsFor(userId, user.getRole(), false));
 
         } catch (Exception e) {
             logger.error("Error getting notifications for user {}", userId, e);
@@ -184,6 +171,66 @@ public class NotificationService {
         }
     }
 
+    // Keyset-paginated feed: each page is an index range scan that starts at the cursor, so
+    // its cost does not depend on how much history the user has
+    @Transactional(readOnly = true)
+    public NotificationFeedPage getNotificationFeed(Long userId, String cursor, Integer limit,
+                                                    Notification.NotificationType type,
+                                                    Notification.NotificationStatus status) {
+        int pageSize = limit == null ? feedDefaultLimit : Math.max(1, Math.min(limit, feedMaxLimit));
+        FeedCursor after = cursor == null || cursor.isBlank() ? FeedCursor.START : FeedCursor.decode(cursor);
+        // One extra row tells us whether there is a next page
+        Pageable page = PageRequest.of(0, pageSize + 1);
+
+        List<Notification> rows;
+        if (status != null && type != null) {
+            rows = notificationRepository.findFeedPageByStatusAndType(userId, status, type, after.createdAt(), after.id(), page);
+        } else if (status != null) {
+            rows = notificationRepository.findFeedPageByStatus(userId, status, after.createdAt(), after.id(), page);
+        } else if (type != null) {
+            rows = notificationRepository.findFeedPageByType(userId, type, after.createdAt(), after.id(), page);
+        } else {
+            rows = notificationRepository.findFeedPage(userId, after.createdAt(), after.id(), page);
+        }
+
+        boolean hasMore = rows.size() > pageSize;
+        List<Notification> pageRows = hasMore ? rows.subList(0, pageSize) : rows;
+        // The feed is always the caller's own, so the recipient is left out instead of loaded
+        List<NotificationDTO> items = pageRows.stream()
+                .map(n -> new NotificationDTO(n, null))
+                .collect(Collectors.toList());
+
+        String nextCursor = null;
+        if (hasMore) {
+            Notification last = pageRows.get(pageRows.size() - 1);
+            nextCursor = new FeedCursor(last.getCreatedAt(), last.getId()).encode();
+        }
+        return new NotificationFeedPage(items, nextCursor);
+    }
+
+    // Archived (read, past retention) notifications, paged the same way as the live feed
+    @Transactional(readOnly = true)
+    public NotificationFeedPage getNotificationHistory(Long userId, String cursor, Integer limit) {
+        int pageSize = limit == null ? feedDefaultLimit : Math.max(1, Math.min(limit, feedMaxLimit));
+        FeedCursor after = cursor == null || cursor.isBlank() ? FeedCursor.START : FeedCursor.decode(cursor);
+
+        List<ArchivedNotification> rows = archivedNotificationRepository.findHistoryPage(
+                userId, after.createdAt(), after.id(), PageRequest.of(0, pageSize + 1));
+
+        boolean hasMore = rows.size() > pageSize;
+        List<ArchivedNotification> pageRows = hasMore ? rows.subList(0, pageSize) : rows;
+        List<NotificationDTO> items = pageRows.stream()
+                .map(NotificationDTO::new)
+                .collect(Collectors.toList());
+
+        String nextCursor = null;
+        if (hasMore) {
+            ArchivedNotification last = pageRows.get(pageRows.size() - 1);
+            nextCursor = new FeedCursor(last.getCreatedAt(), last.getId()).encode();
+        }
+        return new NotificationFeedPage(items, nextCursor);
+    }
+
     public List<NotificationDTO> getUnreadUserNotifications(Long userId) {
         try {
             UserAccount user = userAccountRepository.findById(userId)
@@ -194,9 +241,10 @@ public class NotificationService {
             );
 
             // Convert to DTOs
-            return notifications.stream()
+            List<NotificationDTO> personal = notifications.stream()
                     .map(NotificationDTO::new)
                     .collect(Collectors.toList());
+            return withBroadcasts(personal, broadcastService.getBroadcastsFor(userId, user.getRole(), true));
 
         } catch (Exception e) {
             logger.error("Error getting unread notifications for user {}", userId, e);
@@ -204,13 +252,10 @@ public class NotificationService {
         }
     }
 
+    // Served from the in-memory counter; only the first call per user hits the database
     public long getUnreadNotificationCount(Long userId) {
         try {
-            UserAccount user = userAccountRepository.findById(userId)
-                    .orElseThrow(() -> new IllegalArgumentException("User not found with id: " + userId));
-            return notificationRepository.countByRecipientAndStatus(
-                    user, Notification.NotificationStatus.UNREAD
-            );
+            return unreadCounterService.getUnreadCount(userId);
         } catch (Exception e) {
             logger.error("Error getting unread count for user {}", userId, e);
             throw new RuntimeException("Failed to get unread count", e);
@@ -221,8 +266,9 @@ public class NotificationService {
         try {
             int updated = notificationRepository.markAsRead(notificationId, userId);
             if (updated == 0) {
-                logger.warn("No notification found with ID {} for user {}", notificationId, userId);
+                logger.warn("No unread notification found with ID {} for user {}", notificationId, userId);
             } else {
+                unreadCounterService.adjustAfterCommit(userId, -updated);
                 logger.debug("Marked notification {} as read for user {}", notificationId, userId);
             }
         } catch (Exception e) {
@@ -233,11 +279,55 @@ public class NotificationService {
 
     public void markAllAsRead(Long userId) {
         try {
-            int updated = notificationRepository.markAllAsRead(userId);
+            UserAccount user = userAccountRepository.findById(userId)
+                    .orElseThrow(() -> new IllegalArgumentException("User not found with id: " + userId));
+            int updated = notificationRepository.markAllAsRead(userId)
+                    + broadcastService.markAllRead(userId, user.getRole());
+            unreadCounterService.adjustAfterCommit(userId, -updated);
             logger.debug("Marked {} notifications as read for user {}", updated, userId);
         } catch (Exception e) {
             logger.error("Error marking all notifications as read for user {}", userId, e);
             throw new RuntimeException("Failed to mark all notifications as read", e);
         }
     }
-}
\ No newline at end of file
+
+    // Both lists are newest first; merges them keeping that order
+    private static List<NotificationDTO> withBroadcasts(List<NotificationDTO> personal, List<NotificationDTO> broadcasts) {
+        if (broadcasts.isEmpty()) {
+            return personal;
+        }
+        List<NotificationDTO> merged = new ArrayList<>(personal.size() + broadcasts.size());
+        int p = 0;
+        int b = 0;
+        while (p < personal.size() || b < broadcasts.size()) {
+            if (b >= broadcasts.size() || (p < personal.size()
+                    && !personal.get(p).getCreatedAt().isBefore(broadcasts.get(b).getCreatedAt()))) {
+                merged.add(personal.get(p++));
+            } else {
+                merged.add(broadcasts.get(b++));
+            }
+        }
+        return merged;
+    }
+
+    // Opaque position in the feed: base64url of "createdAt|id"
+    private record FeedCursor(LocalDateTime createdAt, Long id) {
+        static final FeedCursor START = new FeedCursor(LocalDateTime.of(9999, 12, 31, 0, 0), Long.MAX_VALUE);
+
+        String encode() {
+            String raw = createdAt + "|" + id;
+            return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+        }
+
+        static FeedCursor decode(String cursor) {
+            try {
+                String raw = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+                int separator = raw.lastIndexOf('|');
+                return new FeedCursor(LocalDateTime.parse(raw.substring(0, separator)),
+                        Long.parseLong(raw.substring(separator + 1)));
+            } catch (RuntimeException e) {
+                throw new IllegalArgumentException("Invalid feed cursor: " + cursor);
+            }
+        }
+    }
+}
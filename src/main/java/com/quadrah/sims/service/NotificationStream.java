@@ -0,0 +1,232 @@
+package com.quadrah.sims.service;
+
+import com.quadrah.sims.model.UserAccount;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Supplier;
+
+// Server-Sent Events transport for the same events NotificationPublisher sends over STOMP.
+// Every event gets a per-node sequence id and is kept in a ring buffer, so a client that
+// reconnects with Last-Event-ID gets what it missed; if the gap has already left the buffer
+// (or the id comes from another node or an earlier run) it gets a DB snapshot instead.
+// Each subscriber has a bounded queue drained on a shared executor; a subscriber whose queue
+// fills up is disconnected rather than slowing down publishing, and recovers by reconnecting.
+@Component
+public class NotificationStream {
+
+    public static final String RESYNC_EVENT = "resync";
+
+    private static final Logger logger = LoggerFactory.getLogger(NotificationStream.class);
+
+    private final Executor executor;
+    private final Duration emitterTimeout;
+    private final int subscriberQueueCapacity;
+
+    private final StreamEvent[] buffer;
+    // Seeded from the clock so ids keep increasing across restarts of this node
+    private final long firstSequence = System.currentTimeMillis() * 1000 + 1;
+    private long lastSequence = firstSequence - 1;
+    private final Set<Subscriber> subscribers = ConcurrentHashMap.newKeySet();
+    private final Counter evictions;
+
+    public NotificationStream(@Qualifier("notificationStreamExecutor") Executor executor,
+                              MeterRegistry meterRegistry,
+                              @Value("${app.notifications.stream.buffer-size:1000}") int bufferSize,
+                              @Value("${app.notifications.stream.subscriber-queue-capacity:100}") int subscriberQueueCapacity,
+                              @Value("${app.notifications.stream.timeout:30m}") Duration emitterTimeout) {
+        this.executor = executor;
+        this.emitterTimeout = emitterTimeout;
+        this.subscriberQueueCapacity = subscriberQueueCapacity;
+        this.buffer = new StreamEvent[bufferSize];
+        this.evictions = Counter.builder("sims.notifications.stream.evicted")
+                .description("SSE subscribers disconnected because they fell behind")
+                .register(meterRegistry);
+        meterRegistry.gauge("sims.notifications.stream.subscribers", subscribers, Set::size);
+    }
+
+    // Audience: userId for a single user, role for a role topic, neither for everyone
+    public void publish(Long userId, UserAccount.UserRole role, String eventName, Object payload) {
+        StreamEvent event;
+        synchronized (buffer) {
+            event = new StreamEvent(++lastSequence, userId, role, eventName, payload);
+            buffer[(int) (event.sequence() % buffer.length)] = event;
+        }
+        for (Subscriber subscriber : subscribers) {
+            if (event.isFor(subscriber.userId, subscriber.role)) {
+                subscriber.offer(event);
+            }
+        }
+    }
+
+    public SseEmitter subscribe(Long userId, UserAccount.UserRole role, String lastEventId,
+                                Supplier<Object> resyncSnapshot) {
+        SseEmitter emitter = new SseEmitter(emitterTimeout.toMillis());
+        Subscriber subscriber = new Subscriber(emitter, userId, role);
+        emitter.onCompletion(() -> subscribers.remove(subscriber));
+        emitter.onTimeout(() -> subscribers.remove(subscriber));
+        emitter.onError(e -> subscribers.remove(subscriber));
+
+        // Register before reading the buffer so nothing published in between is lost;
+        // a duplicate is possible and clients drop ids they have already seen
+        subscribers.add(subscriber);
+
+        if (lastEventId != null && !lastEventId.isBlank()) {
+            List<StreamEvent> missed = replayAfter(parseSequence(lastEventId), userId, role);
+            if (missed == null) {
+                subscriber.offer(new StreamEvent(currentSequence(), userId, role, RESYNC_EVENT, resyncSnapshot.get()));
+            } else {
+                missed.forEach(subscriber::offer);
+            }
+        }
+        return emitter;
+    }
+
+    // Users with at least one open stream on this node
+    public Set<Long> subscribedUserIds() {
+        Set<Long> userIds = new HashSet<>();
+        for (Subscriber subscriber : subscribers) {
+            userIds.add(subscriber.userId);
+        }
+        return userIds;
+    }
+
+    @Scheduled(fixedDelayString = "${app.notifications.stream.heartbeat-interval-ms:15000}")
+    public void heartbeat() {
+        for (Subscriber subscriber : subscribers) {
+            subscriber.offer(StreamEvent.HEARTBEAT);
+        }
+    }
+
+    // Events after the given sequence for this audience, or null if some of them are gone
+    private List<StreamEvent> replayAfter(long sequence, Long userId, UserAccount.UserRole role) {
+        synchronized (buffer) {
+            long oldestKept = Math.max(lastSequence - buffer.length + 1, firstSequence);
+            if (sequence < oldestKept - 1 || sequence > lastSequence) {
+                return null;
+            }
+            List<StreamEvent> missed = new ArrayList<>();
+            for (long next = sequence + 1; next <= lastSequence; next++) {
+                StreamEvent event = buffer[(int) (next % buffer.length)];
+                if (event != null && event.sequence() == next && event.isFor(userId, role)) {
+                    missed.add(event);
+                }
+            }
+            return missed;
+        }
+    }
+
+    private long currentSequence() {
+        synchronized (buffer) {
+            return lastSequence;
+        }
+    }
+
+    private static long parseSequence(String lastEventId) {
+        try {
+            return Long.parseLong(lastEventId.trim());
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+
+    private record StreamEvent(long sequence, Long userId, UserAccount.UserRole role, String name, Object payload) {
+        static final StreamEvent HEARTBEAT = new StreamEvent(-1, null, null, null, null);
+
+        boolean isFor(Long subscriberId, UserAccount.UserRole subscriberRole) {
+            if (userId != null) {
+                return userId.equals(subscriberId);
+            }
+            return role == null || role == subscriberRole;
+        }
+    }
+
+    private final class Subscriber {
+        private final SseEmitter emitter;
+        private final Long userId;
+        private final UserAccount.UserRole role;
+        private final BlockingQueue<StreamEvent> queue = new ArrayBlockingQueue<>(subscriberQueueCapacity);
+        private final AtomicBoolean draining = new AtomicBoolean();
+
+        Subscriber(SseEmitter emitter, Long userId, UserAccount.UserRole role) {
+            this.emitter = emitter;
+            this.userId = userId;
+            this.role = role;
+        }
+
+        void offer(StreamEvent event) {
+            if (!queue.offer(event)) {
+                evict();
+                return;
+            }
+            scheduleDrain();
+        }
+
+        private void scheduleDrain() {
+            if (draining.compareAndSet(false, true)) {
+                try {
+                    executor.execute(this::drain);
+                } catch (RejectedExecutionException e) {
+                    draining.set(false);
+                    evict();
+                }
+            }
+        }
+
+        private void drain() {
+            try {
+                StreamEvent event;
+                while ((event = queue.poll()) != null) {
+                    send(event);
+                }
+            } catch (IOException | IllegalStateException e) {
+                // Client went away; the emitter callbacks remove the subscriber
+                subscribers.remove(this);
+                return;
+            } finally {
+                draining.set(false);
+            }
+            if (!queue.isEmpty()) {
+                scheduleDrain();
+            }
+        }
+
+        private void send(StreamEvent event) throws IOException {
+            if (event == StreamEvent.HEARTBEAT) {
+                emitter.send(SseEmitter.event().comment("heartbeat"));
+            } else {
+                emitter.send(SseEmitter.event()
+                        .id(String.valueOf(event.sequence()))
+                        .name(event.name())
+                        .data(event.payload()));
+            }
+        }
+
+        private void evict() {
+            if (subscribers.remove(this)) {
+                evictions.increment();
+                logger.debug("Evicted slow SSE subscriber for user {}", userId);
+                emitter.complete();
+            }
+        }
+    }
+}
@@ -0,0 +1,130 @@
+package com.quadrah.sims.service;
+
+import com.quadrah.sims.dto.UserDTO;
+import com.quadrah.sims.model.UserAccount;
+import com.quadrah.sims.repository.UserAccountRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicLong;
+
+// In-memory snapshot of active users per role for notification fan-out. Loaded with one query,
+// dropped whenever a user is created/updated/deactivated, and refreshed after a TTL so changes
+// made on other nodes are picked up.
+@Component
+public class RecipientDirectory {
+
+    private final UserAccountRepository userAccountRepository;
+    private final Duration ttl;
+
+    private final AtomicLong generation = new AtomicLong();
+    private volatile Snapshot snapshot;
+
+    public RecipientDirectory(UserAccountRepository userAccountRepository,
+                              @Value("${app.notifications.recipient-ttl:5m}") Duration ttl) {
+        this.userAccountRepository = userAccountRepository;
+        this.ttl = ttl;
+    }
+
+    public List<Recipient> getRecipients(UserAccount.UserRole... roles) {
+        Snapshot current = current();
+        if (roles.length == 1) {
+            return current.byRole().getOrDefault(roles[0], List.of());
+        }
+        List<Recipient> recipients = new ArrayList<>();
+        for (UserAccount.UserRole role : roles) {
+            recipients.addAll(current.byRole().getOrDefault(role, List.of()));
+        }
+        return recipients;
+    }
+
+    // Active user by id, regardless of role
+    public Optional<Recipient> getRecipient(Long userId) {
+        return Optional.ofNullable(current().byId().get(userId));
+    }
+
+    public void invalidate() {
+        generation.incrementAndGet();
+        snapshot = null;
+    }
+
+    // Drops the snapshot now and once more after commit, so a reload racing with the
+    // transaction can't keep the pre-commit view
+    public void invalidateAfterCommit() {
+        invalidate();
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    invalidate();
+                }
+            });
+        }
+    }
+
+    private Snapshot current() {
+        Snapshot current = snapshot;
+        if (current != null && current.loadedAt().plus(ttl).isAfter(Instant.now())) {
+            return current;
+        }
+        return load();
+    }
+
+    private synchronized Snapshot load() {
+        Snapshot current = snapshot;
+        if (current != null && current.loadedAt().plus(ttl).isAfter(Instant.now())) {
+            return current;
+        }
+
+        long loadGeneration = generation.get();
+        Map<UserAccount.UserRole, List<Recipient>> byRole = new EnumMap<>(UserAccount.UserRole.class);
+        Map<Long, Recipient> byId = new HashMap<>();
+        for (UserAccount user : userAccountRepository.findByIsActiveTrue()) {
+            Recipient recipient = Recipient.of(user);
+            byRole.computeIfAbsent(user.getRole(), role -> new ArrayList<>()).add(recipient);
+            byId.put(recipient.id(), recipient);
+        }
+        byRole.replaceAll((role, recipients) -> List.copyOf(recipients));
+
+        Snapshot loaded = new Snapshot(Collections.unmodifiableMap(byRole), byId, Instant.now());
+        // Only publish if no invalidation happened while we were reading
+        if (generation.get() == loadGeneration) {
+            snapshot = loaded;
+        }
+        return loaded;
+    }
+
+    // Distinct recipients, preserving order
+    public static List<Recipient> distinct(List<Recipient> recipients) {
+        Map<Long, Recipient> unique = new LinkedHashMap<>();
+        recipients.forEach(recipient -> unique.putIfAbsent(recipient.id(), recipient));
+        return new ArrayList<>(unique.values());
+    }
+
+    public record Recipient(Long id, String keycloakId, String username, String firstName, String lastName,
+                            String email, UserAccount.UserRole role) {
+        static Recipient of(UserAccount user) {
+            return new Recipient(user.getId(), user.getKeycloakId(), user.getUsername(), user.getFirstName(),
+                    user.getLastName(), user.getEmail(), user.getRole());
+        }
+
+        public UserDTO toUserDTO() {
+            return new UserDTO(id, username, firstName, lastName, email, role.name());
+        }
+    }
+
+    private record Snapshot(Map<UserAccount.UserRole, List<Recipient>> byRole, Map<Long, Recipient> byId,
+                            Instant loadedAt) {}
+}
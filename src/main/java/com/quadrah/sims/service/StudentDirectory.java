@@ -0,0 +1,370 @@
+package com.quadrah.sims.service;
+
+import com.quadrah.sims.dto.StudentSummary;
+import com.quadrah.sims.repository.StudentRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Consumer;
+import java.util.regex.Pattern;
+
+// In-process search index over the student roster, so the search box never hits Postgres.
+// Every name and student id is indexed by its one- and two-character prefixes and its trigrams;
+// postings are ascending slot numbers, so a query intersects the shortest lists first and then
+// verifies and ranks the few survivors. Kept current by StudentService after each commit, and
+// rebuilt from the database on a schedule to pick up changes made on other nodes.
+@Component
+public class StudentDirectory {
+
+    private static final Logger logger = LoggerFactory.getLogger(StudentDirectory.class);
+    private static final Pattern DIACRITICS = Pattern.compile("\\p{M}+");
+    private static final Pattern WHITESPACE = Pattern.compile("\\s+");
+
+    private final StudentRepository studentRepository;
+    private final int defaultLimit;
+    private final int maxLimit;
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    // Guarded by lock
+    private Index index;
+    // Changes committed while a rebuild is reading the table; replayed onto the new index. Guarded by lock
+    private List<Consumer<Index>> pendingReplay;
+
+    public StudentDirectory(StudentRepository studentRepository,
+                            @Value("${app.students.directory.default-limit:20}") int defaultLimit,
+                            @Value("${app.students.directory.max-limit:100}") int maxLimit) {
+        this.studentRepository = studentRepository;
+        this.defaultLimit = defaultLimit;
+        this.maxLimit = maxLimit;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady() {
+        rebuild();
+    }
+
+    @Scheduled(fixedDelayString = "${app.students.directory.refresh-interval-ms:600000}",
+            initialDelayString = "${app.students.directory.refresh-interval-ms:600000}")
+    public void refresh() {
+        rebuild();
+    }
+
+    // Ranked by match quality (exact, then prefix, then substring), then by name.
+    // Every whitespace-separated token has to match the first name, last name or student id.
+    public List<StudentSummary> search(String query, Integer limit) {
+        String[] tokens = tokenize(query);
+        if (tokens.length == 0) {
+            return List.of();
+        }
+        int effectiveLimit = limit == null ? defaultLimit : Math.min(Math.max(limit, 1), maxLimit);
+
+        ensureLoaded();
+        lock.readLock().lock();
+        try {
+            return index.search(tokens, effectiveLimit);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public void putAfterCommit(StudentSummary student) {
+        afterCommit(() -> mutate(current -> current.put(student)));
+    }
+
+    public void removeAfterCommit(Long id) {
+        afterCommit(() -> mutate(current -> current.remove(id)));
+    }
+
+    // Synchronized so only one rebuild owns pendingReplay at a time
+    private synchronized void rebuild() {
+        lock.writeLock().lock();
+        try {
+            pendingReplay = new ArrayList<>();
+        } finally {
+            lock.writeLock().unlock();
+        }
+
+        Index rebuilt = new Index();
+        try {
+            long started = System.nanoTime();
+            studentRepository.findAllSummaries().forEach(rebuilt::put);
+            logger.info("Student directory loaded {} students in {} ms",
+                    rebuilt.liveCount(), (System.nanoTime() - started) / 1_000_000);
+        } catch (RuntimeException e) {
+            lock.writeLock().lock();
+            try {
+                pendingReplay = null;
+            } finally {
+                lock.writeLock().unlock();
+            }
+            throw e;
+        }
+
+        lock.writeLock().lock();
+        try {
+            pendingReplay.forEach(change -> change.accept(rebuilt));
+            pendingReplay = null;
+            index = rebuilt;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    // Covers searches that arrive before the startup load has finished
+    private void ensureLoaded() {
+        if (isLoaded()) {
+            return;
+        }
+        synchronized (this) {
+            if (!isLoaded()) {
+                rebuild();
+            }
+        }
+    }
+
+    private boolean isLoaded() {
+        lock.readLock().lock();
+        try {
+            return index != null;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // Applies the change to the live index, and queues it for the index being rebuilt if any
+    private void mutate(Consumer<Index> change) {
+        lock.writeLock().lock();
+        try {
+            if (index != null) {
+                change.accept(index);
+            }
+            if (pendingReplay != null) {
+                pendingReplay.add(change);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private static void afterCommit(Runnable action) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    action.run();
+                }
+            });
+        } else {
+            action.run();
+        }
+    }
+
+    static String normalize(String value) {
+        if (value == null) {
+            return "";
+        }
+        String stripped = DIACRITICS.matcher(Normalizer.normalize(value, Normalizer.Form.NFD)).replaceAll("");
+        return stripped.toLowerCase(Locale.ROOT).trim();
+    }
+
+    static String[] tokenize(String query) {
+        String normalized = normalize(query);
+        return normalized.isEmpty() ? new String[0] : WHITESPACE.split(normalized);
+    }
+
+    // Keys a token is looked up by: its prefix key when shorter than a trigram, otherwise its trigrams
+    private static List<String> queryKeys(String token) {
+        if (token.length() < 3) {
+            return List.of("^" + token);
+        }
+        List<String> keys = new ArrayList<>(token.length() - 2);
+        for (int i = 0; i + 3 <= token.length(); i++) {
+            keys.add(token.substring(i, i + 3));
+        }
+        return keys;
+    }
+
+    private static Set<String> indexKeys(String[] terms) {
+        Set<String> keys = new LinkedHashSet<>();
+        for (String term : terms) {
+            if (term.isEmpty()) {
+                continue;
+            }
+            keys.add("^" + term.charAt(0));
+            if (term.length() >= 2) {
+                keys.add("^" + term.substring(0, 2));
+            }
+            for (int i = 0; i + 3 <= term.length(); i++) {
+                keys.add(term.substring(i, i + 3));
+            }
+        }
+        return keys;
+    }
+
+    private record Entry(StudentSummary student, String[] terms) {}
+
+    private record Match(StudentSummary student, int score) {}
+
+    private static final class Postings {
+        private int[] slots = new int[4];
+        private int size;
+
+        void add(int slot) {
+            if (size == slots.length) {
+                slots = Arrays.copyOf(slots, size * 2);
+            }
+            slots[size++] = slot;
+        }
+    }
+
+    // Not thread-safe; StudentDirectory guards it with its lock. Package-private for tests and benchmarks.
+    static final class Index {
+        private Entry[] entries = new Entry[1024];
+        private int size;
+        private int dead;
+        private final Map<Long, Integer> slotById = new HashMap<>();
+        private final Map<String, Postings> postings = new HashMap<>();
+
+        int liveCount() {
+            return slotById.size();
+        }
+
+        void put(StudentSummary student) {
+            remove(student.getId());
+            String[] terms = {
+                    normalize(student.getFirstName()), normalize(student.getLastName()), normalize(student.getStudentId())
+            };
+            if (size == entries.length) {
+                entries = Arrays.copyOf(entries, size * 2);
+            }
+            int slot = size++;
+            entries[slot] = new Entry(student, terms);
+            slotById.put(student.getId(), slot);
+            for (String key : indexKeys(terms)) {
+                postings.computeIfAbsent(key, k -> new Postings()).add(slot);
+            }
+        }
+
+        // Leaves a tombstone; postings are compacted once half of the slots are dead
+        void remove(Long id) {
+            Integer slot = slotById.remove(id);
+            if (slot == null) {
+                return;
+            }
+            entries[slot] = null;
+            dead++;
+            if (dead > 1024 && dead > size / 2) {
+                compact();
+            }
+        }
+
+        private void compact() {
+            Entry[] live = Arrays.copyOf(entries, size);
+            entries = new Entry[Math.max(1024, slotById.size() * 2)];
+            size = 0;
+            dead = 0;
+            slotById.clear();
+            postings.clear();
+            for (Entry entry : live) {
+                if (entry != null) {
+                    put(entry.student());
+                }
+            }
+        }
+
+        List<StudentSummary> search(String[] tokens, int limit) {
+            List<Postings> lists = new ArrayList<>();
+            for (String token : tokens) {
+                for (String key : queryKeys(token)) {
+                    Postings list = postings.get(key);
+                    if (list == null) {
+                        return List.of();
+                    }
+                    lists.add(list);
+                }
+            }
+            lists.sort(Comparator.comparingInt(list -> list.size));
+
+            List<Match> matches = new ArrayList<>();
+            for (int slot : intersect(lists)) {
+                Entry entry = entries[slot];
+                if (entry == null) {
+                    continue;
+                }
+                int score = score(entry.terms(), tokens);
+                if (score > 0) {
+                    matches.add(new Match(entry.student(), score));
+                }
+            }
+            matches.sort(Comparator.comparingInt(Match::score).reversed()
+                    .thenComparing(match -> match.student().getLastName(), Comparator.nullsLast(String.CASE_INSENSITIVE_ORDER))
+                    .thenComparing(match -> match.student().getFirstName(), Comparator.nullsLast(String.CASE_INSENSITIVE_ORDER))
+                    .thenComparing(match -> match.student().getId()));
+            return matches.stream().limit(limit).map(Match::student).toList();
+        }
+
+        // Intersects ascending slot lists, shortest first
+        private static int[] intersect(List<Postings> lists) {
+            Postings first = lists.get(0);
+            int[] result = Arrays.copyOf(first.slots, first.size);
+            int length = result.length;
+            for (int l = 1; l < lists.size() && length > 0; l++) {
+                Postings other = lists.get(l);
+                int kept = 0;
+                int j = 0;
+                for (int i = 0; i < length; i++) {
+                    int slot = result[i];
+                    while (j < other.size && other.slots[j] < slot) {
+                        j++;
+                    }
+                    if (j < other.size && other.slots[j] == slot) {
+                        result[kept++] = slot;
+                    }
+                }
+                length = kept;
+            }
+            return Arrays.copyOf(result, length);
+        }
+
+        // 0 when some token matches no term; otherwise 3 per exact, 2 per prefix and 1 per substring match
+        private static int score(String[] terms, String[] tokens) {
+            int total = 0;
+            for (String token : tokens) {
+                int best = 0;
+                for (String term : terms) {
+                    if (term.equals(token)) {
+                        best = 3;
+                        break;
+                    } else if (term.startsWith(token)) {
+                        best = Math.max(best, 2);
+                    } else if (token.length() >= 3 && term.contains(token)) {
+                        best = Math.max(best, 1);
+                    }
+                }
+                if (best == 0) {
+                    return 0;
+                }
+                total += best;
+            }
+            return total;
+        }
+    }
+}
@@ -0,0 +1,177 @@
+package com.quadrah.sims.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.quadrah.sims.dto.StudentSummary;
+import com.quadrah.sims.repository.StudentRepository;
+import jakarta.servlet.http.HttpServletRequest;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.context.request.NativeWebRequest;
+import org.springframework.web.context.request.async.CallableProcessingInterceptor;
+import org.springframework.web.context.request.async.WebAsyncUtils;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Iterator;
+import java.util.concurrent.Callable;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.Stream;
+
+// Roster export. Rows come from a forward-only cursor over the StudentSummary projection and are
+// written as they arrive, so memory stays flat whatever the roster size. The cursor holds a pooled
+// connection while the client downloads, hence the read-only transaction with a timeout. The statement
+// timeout doesn't bound a slow reader, so the number of exports running at once is capped as well.
+@Service
+public class StudentExportService {
+
+    private static final Logger logger = LoggerFactory.getLogger(StudentExportService.class);
+
+    private static final String[] CSV_HEADER = {
+            "studentId", "firstName", "lastName", "gradeLevel", "homeroom", "dateOfBirth", "gender"
+    };
+
+    private static final String SLOT_INTERCEPTOR_KEY = StudentExportService.class.getName() + ".slot";
+
+    private final StudentRepository studentRepository;
+    private final ObjectMapper objectMapper;
+    private final TransactionTemplate readOnlyTransaction;
+    private final Duration timeout;
+    private final int flushEvery;
+    private final Semaphore slots;
+
+    public StudentExportService(StudentRepository studentRepository,
+                                ObjectMapper objectMapper,
+                                PlatformTransactionManager transactionManager,
+                                @Value("${app.students.export.timeout:10m}") Duration timeout,
+                                @Value("${app.students.export.flush-every:500}") int flushEvery,
+                                @Value("${app.students.export.max-concurrent:2}") int maxConcurrent) {
+        this.studentRepository = studentRepository;
+        this.objectMapper = objectMapper;
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+        this.readOnlyTransaction.setTimeout((int) timeout.toSeconds());
+        this.timeout = timeout;
+        this.flushEvery = flushEvery;
+        this.slots = new Semaphore(maxConcurrent);
+    }
+
+    // Blank filters mean "all". The slot is taken before the response starts, so a full house is
+    // reported as 503. It is given back when the body finishes, and also when the request's async
+    // processing completes, which covers a body that never ran (rejected task, timeout, disconnect).
+    public StreamingResponseBody export(StudentFileFormat format, String gradeLevel, String homeroom,
+                                       HttpServletRequest request) {
+        String grade = blankToNull(gradeLevel);
+        String room = blankToNull(homeroom);
+        if (!slots.tryAcquire()) {
+            throw new RejectedExecutionException("Too many student exports in progress; try again shortly.");
+        }
+        AtomicBoolean held = new AtomicBoolean(true);
+        Runnable release = () -> {
+            if (held.compareAndSet(true, false)) {
+                slots.release();
+            }
+        };
+        WebAsyncUtils.getAsyncManager(request).registerCallableInterceptor(SLOT_INTERCEPTOR_KEY,
+                new CallableProcessingInterceptor() {
+                    @Override
+                    public <T> void afterCompletion(NativeWebRequest webRequest, Callable<T> task) {
+                        release.run();
+                    }
+                });
+        return outputStream -> {
+            try {
+                stream(format, grade, room, outputStream);
+            } finally {
+                release.run();
+            }
+        };
+    }
+
+    private void stream(StudentFileFormat format, String grade, String room, OutputStream outputStream) throws IOException {
+        long started = System.nanoTime();
+        Writer writer = new BufferedWriter(new OutputStreamWriter(outputStream, StandardCharsets.UTF_8));
+        long rows;
+        try {
+            rows = readOnlyTransaction.execute(status -> {
+                try (Stream<StudentSummary> students = studentRepository.streamSummaries(grade, room)) {
+                    return write(format, students.iterator(), writer, started + timeout.toNanos());
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+        } catch (UncheckedIOException e) {
+            // Usually the client went away; the transaction has been rolled back and the cursor closed
+            logger.warn("Student export aborted: {}", e.getCause().getMessage());
+            throw e.getCause();
+        }
+        writer.flush();
+        logger.info("Student export: {} rows as {} in {} ms", rows, format, (System.nanoTime() - started) / 1_000_000);
+    }
+
+    // The deadline is checked at every flush, since a client reading slowly never starts a new statement
+    private long write(StudentFileFormat format, Iterator<StudentSummary> students, Writer writer, long deadline) throws IOException {
+        if (format == StudentFileFormat.CSV) {
+            writeCsvRow(writer, CSV_HEADER);
+        }
+        long rows = 0;
+        while (students.hasNext()) {
+            StudentSummary student = students.next();
+            if (format == StudentFileFormat.CSV) {
+                writeCsvRow(writer, new String[] {
+                        student.getStudentId(), student.getFirstName(), student.getLastName(), student.getGradeLevel(),
+                        student.getHomeroom(), student.getDateOfBirth() == null ? null : student.getDateOfBirth().toString(),
+                        student.getGender()
+                });
+            } else {
+                writer.write(objectMapper.writeValueAsString(student));
+                writer.write('\n');
+            }
+            // Push each chunk to the client rather than letting the response buffer grow
+            if (++rows % flushEvery == 0) {
+                writer.flush();
+                if (System.nanoTime() - deadline > 0) {
+                    throw new IOException("Export exceeded " + timeout + " after " + rows + " rows");
+                }
+            }
+        }
+        return rows;
+    }
+
+    // RFC 4180: quote fields containing a comma, quote or line break; nulls are empty
+    private static void writeCsvRow(Writer writer, String[] fields) throws IOException {
+        for (int i = 0; i < fields.length; i++) {
+            if (i > 0) {
+                writer.write(',');
+            }
+            String field = fields[i];
+            if (field == null) {
+                continue;
+            }
+            if (field.indexOf(',') >= 0 || field.indexOf('"') >= 0 || field.indexOf('\n') >= 0 || field.indexOf('\r') >= 0) {
+                writer.write('"');
+                writer.write(field.replace("\"", "\"\""));
+                writer.write('"');
+            } else {
+                writer.write(field);
+            }
+        }
+        writer.write("\r\n");
+    }
+
+    private static String blankToNull(String value) {
+        return value == null || value.isBlank() ? null : value.trim();
+    }
+}
@@ -0,0 +1,41 @@
+package com.quadrah.sims.service;
+
+import java.util.Locale;
+
+// Roster file formats accepted by the bulk import and produced by the export
+public enum StudentFileFormat {
+    CSV("text/csv", "csv"),
+    NDJSON("application/x-ndjson", "ndjson");
+
+    private final String contentType;
+    private final String extension;
+
+    StudentFileFormat(String contentType, String extension) {
+        this.contentType = contentType;
+        this.extension = extension;
+    }
+
+    public String getContentType() { return contentType; }
+    public String getExtension() { return extension; }
+
+    public static StudentFileFormat fromContentType(String contentType) {
+        String type = contentType == null ? "" : contentType.toLowerCase(Locale.ROOT);
+        if (type.contains("csv")) {
+            return CSV;
+        }
+        if (type.contains("ndjson") || type.contains("jsonl")) {
+            return NDJSON;
+        }
+        throw new IllegalArgumentException("Unsupported content type: " + contentType
+                + ". Use text/csv or application/x-ndjson.");
+    }
+
+    public static StudentFileFormat fromName(String name) {
+        for (StudentFileFormat format : values()) {
+            if (format.name().equalsIgnoreCase(name) || format.extension.equalsIgnoreCase(name)) {
+                return format;
+            }
+        }
+        throw new IllegalArgumentException("Unsupported format: " + name + ". Use csv or ndjson.");
+    }
+}
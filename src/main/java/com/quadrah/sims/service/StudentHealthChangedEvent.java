@@ -0,0 +1,5 @@
+package com.quadrah.sims.service;
+
+// Published when a student's health record changes (allergies, history, contacts, visits, medications);
+// a null studentId means any student may have changed (bulk import)
+public record StudentHealthChangedEvent(Long studentId) {}
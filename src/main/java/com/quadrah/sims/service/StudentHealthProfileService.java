@@ -0,0 +1,215 @@
+package com.quadrah.sims.service;
+
+import com.quadrah.sims.dto.StudentHealthProfile;
+import com.quadrah.sims.dto.StudentSummary;
+import com.quadrah.sims.model.Allergy;
+import com.quadrah.sims.model.EmergencyContact;
+import com.quadrah.sims.model.MedicalHistory;
+import com.quadrah.sims.model.Student;
+import com.quadrah.sims.repository.AllergyRepository;
+import com.quadrah.sims.repository.EmergencyContactRepository;
+import com.quadrah.sims.repository.MedicalHistoryRepository;
+import com.quadrah.sims.repository.MedicationAdministrationRepository;
+import com.quadrah.sims.repository.StudentRepository;
+import com.quadrah.sims.repository.StudentVisitRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+// Assembles a student's chart in one call. The independent reads run concurrently on the
+// healthProfileExecutor, each in its own read-only transaction (and so on its own connection).
+// The result is cached per student together with the student's health_version, which every health
+// write bumps in its own transaction; a hit is only served while that version is unchanged, so a
+// write committed on another node is seen on the next request rather than after the TTL.
+@Service
+public class StudentHealthProfileService {
+
+    private final StudentRepository studentRepository;
+    private final AllergyRepository allergyRepository;
+    private final MedicalHistoryRepository medicalHistoryRepository;
+    private final EmergencyContactRepository emergencyContactRepository;
+    private final StudentVisitRepository visitRepository;
+    private final MedicationAdministrationRepository administrationRepository;
+    private final Executor executor;
+    private final TransactionTemplate readOnlyTransaction;
+    private final int recentLimit;
+    private final Duration timeout;
+    private final Duration ttl;
+
+    private final Map<Long, CachedProfile> cache;
+    // Bumped by every invalidation; a load that raced with one is returned but not cached
+    private final AtomicLong generation = new AtomicLong();
+
+    private final Counter hits;
+    private final Counter misses;
+
+    public StudentHealthProfileService(StudentRepository studentRepository,
+                                       AllergyRepository allergyRepository,
+                                       MedicalHistoryRepository medicalHistoryRepository,
+                                       EmergencyContactRepository emergencyContactRepository,
+                                       StudentVisitRepository visitRepository,
+                                       MedicationAdministrationRepository administrationRepository,
+                                       @Qualifier("healthProfileExecutor") Executor executor,
+                                       PlatformTransactionManager transactionManager,
+                                       MeterRegistry meterRegistry,
+                                       @Value("${app.students.health-profile.recent-limit:50}") int recentLimit,
+                                       @Value("${app.students.health-profile.timeout:5s}") Duration timeout,
+                                       @Value("${app.students.health-profile.cache.ttl:10m}") Duration ttl,
+                                       @Value("${app.students.health-profile.cache.max-entries:2000}") int maxEntries) {
+        this.studentRepository = studentRepository;
+        this.allergyRepository = allergyRepository;
+        this.medicalHistoryRepository = medicalHistoryRepository;
+        this.emergencyContactRepository = emergencyContactRepository;
+        this.visitRepository = visitRepository;
+        this.administrationRepository = administrationRepository;
+        this.executor = executor;
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+        // Also applied as the statement timeout, so a read still running after the deadline gives its connection back
+        this.readOnlyTransaction.setTimeout((int) Math.max(1, (timeout.toMillis() + 999) / 1000));
+        this.recentLimit = recentLimit;
+        this.timeout = timeout;
+        this.ttl = ttl;
+        this.cache = new LinkedHashMap<>(256, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Long, CachedProfile> eldest) {
+                return size() > maxEntries;
+            }
+        };
+        this.hits = Counter.builder("sims.students.health-profile.cache")
+                .tag("result", "hit")
+                .description("Student health profile cache lookups")
+                .register(meterRegistry);
+        this.misses = Counter.builder("sims.students.health-profile.cache")
+                .tag("result", "miss")
+                .description("Student health profile cache lookups")
+                .register(meterRegistry);
+    }
+
+    public Optional<StudentHealthProfile> getHealthProfile(Long studentId) {
+        // One primary-key read per request; cheap next to the six reads it saves on a hit
+        Optional<Long> version = studentRepository.findHealthVersionById(studentId);
+        if (version.isEmpty()) {
+            evict(studentId);
+            return Optional.empty();
+        }
+
+        CachedProfile cached;
+        synchronized (cache) {
+            cached = cache.get(studentId);
+        }
+        if (cached != null && cached.version() == version.get() && cached.loadedAt().plus(ttl).isAfter(Instant.now())) {
+            hits.increment();
+            return Optional.of(cached.profile());
+        }
+
+        misses.increment();
+        // The version was read before the load, so a write racing with it leaves an older stamp
+        // and the next request reloads
+        long loadGeneration = generation.get();
+        Optional<StudentHealthProfile> loaded = load(studentId);
+        loaded.ifPresent(profile -> {
+            synchronized (cache) {
+                if (generation.get() == loadGeneration) {
+                    cache.put(studentId, new CachedProfile(profile, version.get(), Instant.now()));
+                }
+            }
+        });
+        return loaded;
+    }
+
+    // Runs inside the writing transaction so the new version commits (or rolls back) with the change.
+    // A null student id comes from the import, which bumps the versions in its own statement.
+    @TransactionalEventListener(phase = TransactionPhase.BEFORE_COMMIT)
+    public void onHealthChanging(StudentHealthChangedEvent event) {
+        if (event.studentId() != null) {
+            studentRepository.incrementHealthVersion(event.studentId());
+        }
+    }
+
+    // Evicts once the write is visible to the readers; also runs for writes outside a transaction
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onHealthChanged(StudentHealthChangedEvent event) {
+        synchronized (cache) {
+            generation.incrementAndGet();
+            if (event.studentId() == null) {
+                cache.clear();
+            } else {
+                cache.remove(event.studentId());
+            }
+        }
+    }
+
+    private void evict(Long studentId) {
+        synchronized (cache) {
+            cache.remove(studentId);
+        }
+    }
+
+    private Optional<StudentHealthProfile> load(Long studentId) {
+        PageRequest recent = PageRequest.of(0, recentLimit);
+        CompletableFuture<Optional<Student>> student = read(() -> studentRepository.findById(studentId));
+        CompletableFuture<List<Allergy>> allergies =
+                read(() -> allergyRepository.findByStudentIdOrderByAllergyType(studentId));
+        CompletableFuture<List<MedicalHistory>> histories =
+                read(() -> medicalHistoryRepository.findByStudentIdAndIsActiveTrueOrderByConditionName(studentId));
+        CompletableFuture<List<EmergencyContact>> contacts =
+                read(() -> emergencyContactRepository.findByStudentIdOrderByIsPrimaryDesc(studentId));
+        CompletableFuture<List<StudentHealthProfile.VisitSummary>> visits =
+                read(() -> visitRepository.findRecentWithNurseByStudentId(studentId, recent).stream()
+                        .map(StudentHealthProfile.VisitSummary::new).toList());
+        CompletableFuture<List<StudentHealthProfile.AdministrationSummary>> administrations =
+                read(() -> administrationRepository.findRecentByStudentId(studentId, recent).stream()
+                        .map(StudentHealthProfile.AdministrationSummary::new).toList());
+
+        List<CompletableFuture<?>> reads = List.of(student, allergies, histories, contacts, visits, administrations);
+        try {
+            CompletableFuture.allOf(reads.toArray(CompletableFuture[]::new)).get(timeout.toMillis(), TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            // Reads still queued never start; running ones are ended by the transaction timeout
+            reads.forEach(read -> read.cancel(false));
+            throw new IllegalStateException("Timed out loading health profile for student " + studentId);
+        } catch (InterruptedException e) {
+            reads.forEach(read -> read.cancel(false));
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted loading health profile for student " + studentId);
+        } catch (ExecutionException e) {
+            reads.forEach(read -> read.cancel(false));
+            throw e.getCause() instanceof RuntimeException runtime ? runtime : new CompletionException(e.getCause());
+        }
+
+        return student.join().map(found -> new StudentHealthProfile(
+                new StudentSummary(found), found.getSpecialNotes(), allergies.join(), histories.join(),
+                contacts.join(), visits.join(), administrations.join(), LocalDateTime.now()));
+    }
+
+    // Entities are mapped or fully loaded inside the transaction, so nothing lazy escapes it
+    private <T> CompletableFuture<T> read(Supplier<T> query) {
+        return CompletableFuture.supplyAsync(() -> readOnlyTransaction.execute(status -> query.get()), executor);
+    }
+
+    private record CachedProfile(StudentHealthProfile profile, long version, Instant loadedAt) {}
+}
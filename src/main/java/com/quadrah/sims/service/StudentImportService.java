@@ -0,0 +1,430 @@
+package com.quadrah.sims.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.quadrah.sims.dto.StudentImportReport;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.sql.PreparedStatement;
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+// Bulk roster import. The upload is read one record at a time and never held in memory as a whole;
+// valid rows are upserted by student_id in batches, one unnest-based statement and one transaction
+// per batch. A batch that fails is retried row by row so a single bad row can't sink its neighbours.
+// Batches commit independently, so the rows imported before a failure stay imported.
+@Service
+public class StudentImportService {
+
+    private static final Logger logger = LoggerFactory.getLogger(StudentImportService.class);
+
+    private static final String INSERT_SQL =
+            "INSERT INTO students (student_id, first_name, last_name, grade_level, homeroom, date_of_birth, gender, special_notes) " +
+            "SELECT r.student_id, r.first_name, r.last_name, r.grade_level, r.homeroom, r.date_of_birth::date, r.gender, r.special_notes " +
+            "FROM unnest(?::text[], ?::text[], ?::text[], ?::text[], ?::text[], ?::text[], ?::text[], ?::text[]) " +
+            "AS r(student_id, first_name, last_name, grade_level, homeroom, date_of_birth, gender, special_notes) ";
+
+    // Optional columns only overwrite when the upload has a value for them, so a file with just
+    // ids and names (or one without specialNotes) never clears what nurses entered.
+    // xmax = 0 on the returned row means it was inserted rather than updated.
+    private static final String UPSERT_SQL = INSERT_SQL +
+            "ON CONFLICT (student_id) DO UPDATE SET first_name = EXCLUDED.first_name, last_name = EXCLUDED.last_name, " +
+            "grade_level = COALESCE(EXCLUDED.grade_level, students.grade_level), " +
+            "homeroom = COALESCE(EXCLUDED.homeroom, students.homeroom), " +
+            "date_of_birth = COALESCE(EXCLUDED.date_of_birth, students.date_of_birth), " +
+            "gender = COALESCE(EXCLUDED.gender, students.gender), " +
+            "special_notes = COALESCE(EXCLUDED.special_notes, students.special_notes), " +
+            "health_version = students.health_version + 1 " +
+            "RETURNING student_id, (xmax = 0) AS inserted";
+
+    // Rows for existing students, including ones created while the import runs, are not returned
+    private static final String INSERT_NEW_SQL = INSERT_SQL +
+            "ON CONFLICT (student_id) DO NOTHING RETURNING student_id, true AS inserted";
+
+    private static final int MAX_LENGTH = 255;
+    private static final int MAX_NOTES_LENGTH = 1000;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final ObjectMapper objectMapper;
+    private final StudentDirectory studentDirectory;
+    private final ApplicationEventPublisher eventPublisher;
+    private final int batchSize;
+    private final int maxErrors;
+
+    public StudentImportService(JdbcTemplate jdbcTemplate,
+                                TransactionTemplate transactionTemplate,
+                                ObjectMapper objectMapper,
+                                StudentDirectory studentDirectory,
+                                ApplicationEventPublisher eventPublisher,
+                                @Value("${app.students.import.batch-size:1000}") int batchSize,
+                                @Value("${app.students.import.max-errors:1000}") int maxErrors) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = transactionTemplate;
+        this.objectMapper = objectMapper;
+        this.studentDirectory = studentDirectory;
+        this.eventPublisher = eventPublisher;
+        this.batchSize = batchSize;
+        this.maxErrors = maxErrors;
+    }
+
+    // When updateExisting is false, rows for student ids that already exist are rejected instead of updated
+    public StudentImportReport importStudents(InputStream input, StudentFileFormat format, boolean updateExisting) throws IOException {
+        long started = System.nanoTime();
+        StudentImportReport report = new StudentImportReport();
+        String sql = updateExisting ? UPSERT_SQL : INSERT_NEW_SQL;
+        Map<String, Long> seenInFile = new HashMap<>();
+        List<ImportRow> batch = new ArrayList<>(batchSize);
+
+        BufferedReader reader = new BufferedReader(new InputStreamReader(input, StandardCharsets.UTF_8));
+        Iterator<RawRecord> records = format == StudentFileFormat.CSV ? new CsvRecords(reader) : new NdjsonRecords(reader);
+        while (records.hasNext()) {
+            RawRecord record = records.next();
+            report.setTotalRows(report.getTotalRows() + 1);
+            if (record.error() != null) {
+                reject(report, record.line(), record.fields().get("studentid"), record.error());
+                continue;
+            }
+
+            ImportRow row;
+            try {
+                row = ImportRow.of(record);
+            } catch (IllegalArgumentException e) {
+                reject(report, record.line(), record.fields().get("studentid"), e.getMessage());
+                continue;
+            }
+            Long firstLine = seenInFile.putIfAbsent(row.studentId(), row.line());
+            if (firstLine != null) {
+                reject(report, row.line(), row.studentId(), "Duplicate student ID in upload (first seen on line " + firstLine + ")");
+                continue;
+            }
+
+            batch.add(row);
+            if (batch.size() >= batchSize) {
+                flush(sql, batch, report);
+                batch.clear();
+            }
+        }
+        flush(sql, batch, report);
+
+        if (report.getInserted() + report.getUpdated() > 0) {
+            studentDirectory.refresh();
+            // Batches have committed by now, so this evicts immediately
+            eventPublisher.publishEvent(new StudentHealthChangedEvent(null));
+        }
+        report.setDurationMs((System.nanoTime() - started) / 1_000_000);
+        logger.info("Student import: {} rows, {} inserted, {} updated, {} failed in {} ms",
+                report.getTotalRows(), report.getInserted(), report.getUpdated(), report.getFailed(), report.getDurationMs());
+        return report;
+    }
+
+    private void flush(String sql, List<ImportRow> batch, StudentImportReport report) {
+        if (batch.isEmpty()) {
+            return;
+        }
+        try {
+            Map<String, Boolean> written = transactionTemplate.execute(status -> upsert(sql, batch));
+            batch.forEach(row -> recordResult(row, written, report));
+        } catch (DataAccessException e) {
+            logger.warn("Import batch of {} rows failed, retrying row by row: {}", batch.size(), e.getMostSpecificCause().getMessage());
+            for (ImportRow row : batch) {
+                try {
+                    Map<String, Boolean> written = transactionTemplate.execute(status -> upsert(sql, List.of(row)));
+                    recordResult(row, written, report);
+                } catch (DataAccessException rowFailure) {
+                    reject(report, row.line(), row.studentId(), rowFailure.getMostSpecificCause().getMessage());
+                }
+            }
+        }
+    }
+
+    // A row missing from the statement's result was skipped because the student already exists
+    private void recordResult(ImportRow row, Map<String, Boolean> written, StudentImportReport report) {
+        Boolean inserted = written.get(row.studentId());
+        if (inserted == null) {
+            reject(report, row.line(), row.studentId(), "Student with ID " + row.studentId() + " already exists.");
+        } else if (inserted) {
+            report.setInserted(report.getInserted() + 1);
+        } else {
+            report.setUpdated(report.getUpdated() + 1);
+        }
+    }
+
+    // Returns student id -> whether the row was inserted (false: updated) for every row written
+    private Map<String, Boolean> upsert(String sql, List<ImportRow> rows) {
+        int size = rows.size();
+        String[][] columns = new String[8][size];
+        for (int i = 0; i < size; i++) {
+            ImportRow row = rows.get(i);
+            columns[0][i] = row.studentId();
+            columns[1][i] = row.firstName();
+            columns[2][i] = row.lastName();
+            columns[3][i] = row.gradeLevel();
+            columns[4][i] = row.homeroom();
+            columns[5][i] = row.dateOfBirth() == null ? null : row.dateOfBirth().toString();
+            columns[6][i] = row.gender();
+            columns[7][i] = row.specialNotes();
+        }
+        Map<String, Boolean> written = new HashMap<>(size * 2);
+        jdbcTemplate.query(connection -> {
+            PreparedStatement statement = connection.prepareStatement(sql);
+            for (int c = 0; c < columns.length; c++) {
+                statement.setArray(c + 1, connection.createArrayOf("text", columns[c]));
+            }
+            return statement;
+        }, rs -> {
+            written.put(rs.getString(1), rs.getBoolean(2));
+        });
+        return written;
+    }
+
+    private void reject(StudentImportReport report, long line, String studentId, String message) {
+        report.setFailed(report.getFailed() + 1);
+        if (report.getErrors().size() < maxErrors) {
+            report.getErrors().add(new StudentImportReport.RowError(line, studentId, message));
+        } else {
+            report.setErrorsTruncated(true);
+        }
+    }
+
+    // Header/field names compare without case, spaces, dashes or underscores: "Student ID" == "student_id"
+    private static String normalizeName(String name) {
+        return name.toLowerCase(Locale.ROOT).replaceAll("[^a-z0-9]", "");
+    }
+
+    // Fields keyed by normalized name; error is set when the record could not be parsed at all
+    private record RawRecord(long line, Map<String, String> fields, String error) {}
+
+    private record ImportRow(long line, String studentId, String firstName, String lastName, String gradeLevel,
+                             String homeroom, LocalDate dateOfBirth, String gender, String specialNotes) {
+
+        // Same rules as StudentService.validateStudent, plus the column lengths
+        static ImportRow of(RawRecord record) {
+            Map<String, String> fields = record.fields();
+            String studentId = required(fields, "studentid", "Student ID is required.");
+            String firstName = required(fields, "firstname", "First name is required.");
+            String lastName = required(fields, "lastname", "Last name is required.");
+            String dateOfBirth = optional(fields, "dateofbirth", MAX_LENGTH);
+            LocalDate parsedDateOfBirth;
+            try {
+                parsedDateOfBirth = dateOfBirth == null ? null : LocalDate.parse(dateOfBirth);
+            } catch (DateTimeParseException e) {
+                throw new IllegalArgumentException("Invalid date of birth '" + dateOfBirth + "' (expected YYYY-MM-DD).");
+            }
+            return new ImportRow(record.line(), studentId, firstName, lastName,
+                    optional(fields, "gradelevel", MAX_LENGTH), optional(fields, "homeroom", MAX_LENGTH),
+                    parsedDateOfBirth, optional(fields, "gender", MAX_LENGTH),
+                    optional(fields, "specialnotes", MAX_NOTES_LENGTH));
+        }
+
+        private static String required(Map<String, String> fields, String name, String message) {
+            String value = optional(fields, name, MAX_LENGTH);
+            if (value == null) {
+                throw new IllegalArgumentException(message);
+            }
+            return value;
+        }
+
+        private static String optional(Map<String, String> fields, String name, int maxLength) {
+            String value = fields.get(name);
+            if (value == null || value.trim().isEmpty()) {
+                return null;
+            }
+            value = value.trim();
+            if (value.length() > maxLength) {
+                throw new IllegalArgumentException("Field '" + name + "' is longer than " + maxLength + " characters.");
+            }
+            return value;
+        }
+    }
+
+    // RFC 4180 records: header row first, quoted fields may contain commas, doubled quotes and line breaks
+    private static final class CsvRecords implements Iterator<RawRecord> {
+        private final BufferedReader reader;
+        private final List<String> header;
+        private long lineNumber;
+        private RawRecord next;
+
+        CsvRecords(BufferedReader reader) throws IOException {
+            this.reader = reader;
+            List<String> headerFields = readFields();
+            if (headerFields == null) {
+                throw new IllegalArgumentException("The upload is empty.");
+            }
+            this.header = headerFields.stream().map(StudentImportService::normalizeName).toList();
+            if (!header.contains("studentid") || !header.contains("firstname") || !header.contains("lastname")) {
+                throw new IllegalArgumentException("CSV header must include studentId, firstName and lastName columns.");
+            }
+            advance();
+        }
+
+        @Override
+        public boolean hasNext() {
+            return next != null;
+        }
+
+        @Override
+        public RawRecord next() {
+            RawRecord current = next;
+            advance();
+            return current;
+        }
+
+        private void advance() {
+            try {
+                List<String> fields;
+                long line;
+                do {
+                    line = lineNumber + 1;
+                    fields = readFields();
+                } while (fields != null && fields.size() == 1 && fields.get(0).isBlank());
+                if (fields == null) {
+                    next = null;
+                    return;
+                }
+                Map<String, String> values = new HashMap<>();
+                for (int i = 0; i < Math.min(fields.size(), header.size()); i++) {
+                    values.put(header.get(i), fields.get(i));
+                }
+                next = new RawRecord(line, values,
+                        fields.size() > header.size() ? "Row has more fields than the header." : null);
+            } catch (IOException e) {
+                throw new IllegalStateException("Failed to read import upload", e);
+            }
+        }
+
+        private List<String> readFields() throws IOException {
+            String line = reader.readLine();
+            if (line == null) {
+                return null;
+            }
+            lineNumber++;
+            if (lineNumber == 1 && line.startsWith("\uFEFF")) {
+                line = line.substring(1);
+            }
+            List<String> fields = new ArrayList<>();
+            StringBuilder field = new StringBuilder();
+            boolean quoted = false;
+            int i = 0;
+            while (true) {
+                if (i == line.length()) {
+                    if (!quoted) {
+                        break;
+                    }
+                    // Line break inside a quoted field
+                    String continuation = reader.readLine();
+                    if (continuation == null) {
+                        break;
+                    }
+                    lineNumber++;
+                    field.append('\n');
+                    line = continuation;
+                    i = 0;
+                    continue;
+                }
+                char c = line.charAt(i++);
+                if (quoted) {
+                    if (c == '"' && i < line.length() && line.charAt(i) == '"') {
+                        field.append('"');
+                        i++;
+                    } else if (c == '"') {
+                        quoted = false;
+                    } else {
+                        field.append(c);
+                    }
+                } else if (c == '"') {
+                    quoted = true;
+                } else if (c == ',') {
+                    fields.add(field.toString());
+                    field.setLength(0);
+                } else {
+                    field.append(c);
+                }
+            }
+            fields.add(field.toString());
+            return fields;
+        }
+    }
+
+    // One JSON object per line; blank lines are skipped
+    private final class NdjsonRecords implements Iterator<RawRecord> {
+        private final BufferedReader reader;
+        private long lineNumber;
+        private RawRecord next;
+
+        NdjsonRecords(BufferedReader reader) {
+            this.reader = reader;
+            advance();
+        }
+
+        @Override
+        public boolean hasNext() {
+            return next != null;
+        }
+
+        @Override
+        public RawRecord next() {
+            RawRecord current = next;
+            advance();
+            return current;
+        }
+
+        private void advance() {
+            try {
+                String line;
+                do {
+                    line = reader.readLine();
+                    lineNumber++;
+                } while (line != null && line.isBlank());
+                if (line == null) {
+                    next = null;
+                    return;
+                }
+                if (lineNumber == 1 && line.startsWith("\uFEFF")) {
+                    line = line.substring(1);
+                }
+                next = parse(lineNumber, line);
+            } catch (IOException e) {
+                throw new IllegalStateException("Failed to read import upload", e);
+            }
+        }
+
+        private RawRecord parse(long line, String json) {
+            JsonNode node;
+            try {
+                node = objectMapper.readTree(json);
+            } catch (JsonProcessingException e) {
+                return new RawRecord(line, Map.of(), "Invalid JSON: " + e.getOriginalMessage());
+            }
+            if (!node.isObject()) {
+                return new RawRecord(line, Map.of(), "Expected a JSON object.");
+            }
+            Map<String, String> values = new HashMap<>();
+            node.fields().forEachRemaining(field -> {
+                if (!field.getValue().isNull()) {
+                    values.put(normalizeName(field.getKey()), field.getValue().asText());
+                }
+            });
+            return new RawRecord(line, values, null);
+        }
+    }
+}
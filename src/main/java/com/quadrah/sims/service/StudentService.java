@@ -1,8 +1,12 @@
 package com.quadrah.sims.service;
 
+import com.quadrah.sims.dto.StudentSummary;
 import com.quadrah.sims.model.Student;
 import com.quadrah.sims.repository.StudentRepository;
+import org.hibernate.Hibernate;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.util.List;
@@ -13,36 +17,49 @@ import java.util.Optional;
 public class StudentService {
 
     private final StudentRepository studentRepository;
+    private final StudentDirectory studentDirectory;
+    private final ApplicationEventPublisher eventPublisher;
 
-    public StudentService(StudentRepository studentRepository) {
+    public StudentService(StudentRepository studentRepository, StudentDirectory studentDirectory,
+                          ApplicationEventPublisher eventPublisher) {
         this.studentRepository = studentRepository;
+        this.studentDirectory = studentDirectory;
+        this.eventPublisher = eventPublisher;
     }
 
-    public List<Student> getAllStudents() {
-        return studentRepository.findAllByOrderByLastNameAscFirstNameAsc();
+    // Lists and searches return summaries: one query, no child collections
+    @Transactional(readOnly = true)
+    public List<StudentSummary> getAllStudents() {
+        return studentRepository.findAllSummaries();
     }
 
+    // Detail views load the serialized collections before the transaction ends: medical histories
+    // come with the student, emergency contacts in one more query
+    @Transactional(readOnly = true)
     public Optional<Student> getStudentById(Long id) {
-        return studentRepository.findById(id);
+        return studentRepository.findDetailById(id).map(StudentService::withContacts);
     }
 
+    @Transactional(readOnly = true)
     public Optional<Student> getStudentByStudentId(String studentId) {
-        return studentRepository.findByStudentId(studentId);
+        return studentRepository.findDetailByStudentId(studentId).map(StudentService::withContacts);
     }
 
-    public List<Student> getStudentsByGradeLevel(String gradeLevel) {
-        return studentRepository.findByGradeLevel(gradeLevel);
+    @Transactional(readOnly = true)
+    public List<StudentSummary> getStudentsByGradeLevel(String gradeLevel) {
+        return studentRepository.findSummariesByGradeLevel(gradeLevel);
     }
 
-    public List<Student> getStudentsByHomeroom(String homeroom) {
-        return studentRepository.findByHomeroom(homeroom);
+    @Transactional(readOnly = true)
+    public List<StudentSummary> getStudentsByHomeroom(String homeroom) {
+        return studentRepository.findSummariesByHomeroom(homeroom);
     }
 
-    public List<Student> searchStudentsByName(String name) {
-        if (name == null || name.trim().isEmpty()) {
-            return getAllStudents();
-        }
-        return studentRepository.findByNameContainingIgnoreCase(name.trim());
+    // Served from the in-memory directory; a blank query matches nothing. No transaction, so a
+    // keystroke never checks out a pooled connection.
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public List<StudentSummary> searchStudents(String query, Integer limit) {
+        return studentDirectory.search(query, limit);
     }
 
     public Student createStudent(Student student) {
@@ -53,11 +70,13 @@ public class StudentService {
             throw new IllegalArgumentException("Student with ID " + student.getStudentId() + " already exists.");
         }
 
-        return studentRepository.save(student);
+        Student saved = studentRepository.save(student);
+        studentDirectory.putAfterCommit(new StudentSummary(saved));
+        return saved;
     }
 
     public Student updateStudent(Long id, Student studentDetails) {
-        Student student = studentRepository.findById(id)
+        Student student = studentRepository.findDetailById(id)
                 .orElseThrow(() -> new IllegalArgumentException("Student not found with id: " + id));
 
         validateStudent(studentDetails);
@@ -77,7 +96,10 @@ public class StudentService {
         student.setGender(studentDetails.getGender());
         student.setSpecialNotes(studentDetails.getSpecialNotes());
 
-        return studentRepository.save(student);
+        Student saved = studentRepository.save(student);
+        studentDirectory.putAfterCommit(new StudentSummary(saved));
+        eventPublisher.publishEvent(new StudentHealthChangedEvent(id));
+        return saved;
     }
 
     public void deleteStudent(Long id) {
@@ -90,12 +112,19 @@ public class StudentService {
         // }
 
         studentRepository.delete(student);
+        studentDirectory.removeAfterCommit(id);
+        eventPublisher.publishEvent(new StudentHealthChangedEvent(id));
     }
 
     public boolean studentExists(String studentId) {
         return studentRepository.existsByStudentId(studentId);
     }
 
+    private static Student withContacts(Student student) {
+        Hibernate.initialize(student.getEmergencyContacts());
+        return student;
+    }
+
     private void validateStudent(Student student) {
         if (student.getStudentId() == null || student.getStudentId().trim().isEmpty()) {
             throw new IllegalArgumentException("Student ID is required.");
@@ -6,6 +6,7 @@ import com.quadrah.sims.model.UserAccount;
 import com.quadrah.sims.repository.StudentRepository;
 import com.quadrah.sims.repository.StudentVisitRepository;
 import com.quadrah.sims.repository.UserAccountRepository;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
@@ -20,15 +21,18 @@ public class StudentVisitService {
     private final StudentRepository studentRepository;
     private final UserAccountRepository userAccountRepository;
     private final NotificationService notificationService;
+    private final ApplicationEventPublisher eventPublisher;
 
     public StudentVisitService(StudentVisitRepository visitRepository,
                                StudentRepository studentRepository,
                                UserAccountRepository userAccountRepository,
-                               NotificationService notificationService) {
+                               NotificationService notificationService,
+                               ApplicationEventPublisher eventPublisher) {
         this.visitRepository = visitRepository;
         this.studentRepository = studentRepository;
         this.userAccountRepository = userAccountRepository;
         this.notificationService = notificationService;
+        this.eventPublisher = eventPublisher;
     }
 
     public List<StudentVisit> getAllVisits() {
@@ -79,6 +83,7 @@ public class StudentVisitService {
         }
 
         StudentVisit savedVisit = visitRepository.save(visit);
+        eventPublisher.publishEvent(new StudentHealthChangedEvent(savedVisit.getStudent().getId()));
 
         // Handle emergency notifications
         if (Boolean.TRUE.equals(visit.getEmergencyFlag())) {
@@ -115,7 +120,9 @@ public class StudentVisitService {
             notificationService.notifyEmergencyVisit(visit);
         }
 
-        return visitRepository.save(visit);
+        StudentVisit savedVisit = visitRepository.save(visit);
+        eventPublisher.publishEvent(new StudentHealthChangedEvent(visit.getStudent().getId()));
+        return savedVisit;
     }
 
     public StudentVisit updateDisposition(Long visitId, StudentVisit.DispositionType disposition) {
@@ -125,6 +132,7 @@ public class StudentVisitService {
         visit.setDisposition(disposition);
 
         StudentVisit updatedVisit = visitRepository.save(visit);
+        eventPublisher.publishEvent(new StudentHealthChangedEvent(visit.getStudent().getId()));
         notificationService.notifyDispositionChange(updatedVisit);
 
         return updatedVisit;
@@ -140,6 +148,7 @@ public class StudentVisitService {
         }
 
         visitRepository.delete(visit);
+        eventPublisher.publishEvent(new StudentHealthChangedEvent(visit.getStudent().getId()));
     }
 
     public long getVisitCountByStudent(Long studentId) {
@@ -0,0 +1,225 @@
+package com.quadrah.sims.service;
+
+import com.quadrah.sims.model.BroadcastNotification;
+import com.quadrah.sims.model.Notification;
+import com.quadrah.sims.model.UserAccount;
+import com.quadrah.sims.repository.BroadcastNotificationRepository;
+import com.quadrah.sims.repository.NotificationRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.messaging.simp.user.SimpUser;
+import org.springframework.messaging.simp.user.SimpUserRegistry;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Per-user unread notification counts (personal and broadcast) kept in memory. A count is
+// loaded from the DB the first time it is asked for, then adjusted by fan-out, broadcasts and
+// mark-as-read and pushed to the user's WebSocket sessions on /user/queue/unread-count. A periodic reconcile corrects drift (writes
+// from other nodes, races with the initial load) and drops counters nobody has asked for lately, unless
+// the user still has a WebSocket or SSE session here: those clients rely on the pushes and stop polling.
+@Component
+public class UnreadCounterService {
+
+    public static final String UNREAD_COUNT_QUEUE = "/queue/unread-count";
+
+    private static final Logger logger = LoggerFactory.getLogger(UnreadCounterService.class);
+
+    private final NotificationRepository notificationRepository;
+    private final BroadcastNotificationRepository broadcastRepository;
+    private final RecipientDirectory recipientDirectory;
+    private final NotificationPublisher publisher;
+    private final NotificationStream notificationStream;
+    private final SimpUserRegistry simpUserRegistry;
+    private final Duration idleTtl;
+
+    private final Map<Long, Counter> counters = new ConcurrentHashMap<>();
+
+    public UnreadCounterService(NotificationRepository notificationRepository,
+                                BroadcastNotificationRepository broadcastRepository,
+                                RecipientDirectory recipientDirectory,
+                                NotificationPublisher publisher,
+                                NotificationStream notificationStream,
+                                SimpUserRegistry simpUserRegistry,
+                                MeterRegistry meterRegistry,
+                                @Value("${app.notifications.unread.idle-ttl:30m}") Duration idleTtl) {
+        this.notificationRepository = notificationRepository;
+        this.broadcastRepository = broadcastRepository;
+        this.recipientDirectory = recipientDirectory;
+        this.publisher = publisher;
+        this.notificationStream = notificationStream;
+        this.simpUserRegistry = simpUserRegistry;
+        this.idleTtl = idleTtl;
+        meterRegistry.gauge("sims.notifications.unread.counters", counters, Map::size);
+    }
+
+    public long getUnreadCount(Long userId) {
+        Counter counter = counters.get(userId);
+        if (counter == null) {
+            // Queried outside the map so no bin lock is held across the round trip; a racing load
+            // that lands first wins and keeps any adjustments already applied to it
+            Counter loaded = new Counter(loadUnreadCount(userId));
+            Counter existing = counters.putIfAbsent(userId, loaded);
+            counter = existing != null ? existing : loaded;
+        }
+        counter.touch();
+        return counter.value().get();
+    }
+
+    // Only counters that are already loaded are adjusted; the others are read fresh on first use
+    public void increment(Collection<Long> userIds) {
+        for (Long userId : userIds) {
+            adjust(userId, 1);
+        }
+    }
+
+    // A new broadcast is unread for every loaded user in its audience (null = everyone)
+    public void incrementForAudience(UserAccount.UserRole audienceRole) {
+        for (Long userId : counters.keySet()) {
+            if (audienceRole == null || recipientDirectory.getRecipient(userId)
+                    .map(recipient -> recipient.role() == audienceRole).orElse(false)) {
+                adjust(userId, 1);
+            }
+        }
+    }
+
+    public void adjustAfterCommit(Long userId, long delta) {
+        if (delta == 0) {
+            return;
+        }
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    adjust(userId, delta);
+                }
+            });
+        } else {
+            adjust(userId, delta);
+        }
+    }
+
+    private void adjust(Long userId, long delta) {
+        Counter counter = counters.get(userId);
+        if (counter == null) {
+            return;
+        }
+        long value = counter.value().updateAndGet(current -> Math.max(0, current + delta));
+        push(userId, value);
+    }
+
+    @Scheduled(fixedDelayString = "${app.notifications.unread.reconcile-interval-ms:300000}")
+    public void reconcile() {
+        Instant idleCutoff = Instant.now().minus(idleTtl);
+        Set<Long> streaming = notificationStream.subscribedUserIds();
+        counters.forEach((userId, counter) -> {
+            if (streaming.contains(userId) || hasWebSocketSession(userId)) {
+                counter.touch();
+            }
+        });
+        counters.entrySet().removeIf(entry -> entry.getValue().lastAccess() < idleCutoff.toEpochMilli());
+        if (counters.isEmpty()) {
+            return;
+        }
+
+        // Values as of before the query; a counter adjusted while it runs already reflects a newer
+        // write than the count may have seen, so it is left for the next reconcile
+        Map<Long, Observed> observed = new HashMap<>();
+        counters.forEach((userId, counter) -> observed.put(userId, new Observed(counter, counter.value().get())));
+        List<Long> userIds = new ArrayList<>(observed.keySet());
+        Map<Long, Long> actual = new HashMap<>();
+        for (Object[] row : notificationRepository.countByRecipientIdsAndStatus(
+                userIds, Notification.NotificationStatus.UNREAD)) {
+            actual.put((Long) row[0], (Long) row[1]);
+        }
+        addBroadcastUnread(userIds, actual);
+
+        int corrected = 0;
+        for (Long userId : userIds) {
+            Observed before = observed.get(userId);
+            long value = actual.getOrDefault(userId, 0L);
+            if (before.value() != value && counters.get(userId) == before.counter()
+                    && before.counter().value().compareAndSet(before.value(), value)) {
+                corrected++;
+                push(userId, value);
+            }
+        }
+        if (corrected > 0) {
+            logger.debug("Reconciled {} of {} unread counters", corrected, userIds.size());
+        }
+    }
+
+    private boolean hasWebSocketSession(Long userId) {
+        return recipientDirectory.getRecipient(userId)
+                .map(RecipientDirectory.Recipient::keycloakId)
+                .map(simpUserRegistry::getUser)
+                .map(SimpUser::hasSessions)
+                .orElse(false);
+    }
+
+    // Personal unread rows plus visible broadcasts the user has no read marker for
+    private long loadUnreadCount(Long userId) {
+        long personal = notificationRepository.countByRecipientIdAndStatus(userId, Notification.NotificationStatus.UNREAD);
+        return recipientDirectory.getRecipient(userId)
+                .map(recipient -> personal + broadcastRepository.countUnreadFor(userId, recipient.role(), LocalDateTime.now()))
+                .orElse(personal);
+    }
+
+    // Batched form of the broadcast part of loadUnreadCount: visible broadcasts per audience,
+    // minus each user's read markers among them
+    private void addBroadcastUnread(List<Long> userIds, Map<Long, Long> actual) {
+        List<BroadcastNotification> visible = broadcastRepository.findVisible(LocalDateTime.now());
+        if (visible.isEmpty()) {
+            return;
+        }
+        Map<Long, Long> readByUser = new HashMap<>();
+        for (Object[] row : broadcastRepository.countReadByUser(
+                userIds, visible.stream().map(BroadcastNotification::getId).toList())) {
+            readByUser.put((Long) row[0], (Long) row[1]);
+        }
+        for (Long userId : userIds) {
+            recipientDirectory.getRecipient(userId).ifPresent(recipient -> {
+                long visibleToUser = visible.stream()
+                        .filter(b -> b.getAudienceRole() == null || b.getAudienceRole() == recipient.role())
+                        .count();
+                long unread = Math.max(0, visibleToUser - readByUser.getOrDefault(userId, 0L));
+                actual.merge(userId, unread, Long::sum);
+            });
+        }
+    }
+
+    private void push(Long userId, long value) {
+        recipientDirectory.getRecipient(userId)
+                .ifPresent(recipient -> publisher.sendToUser(recipient, UNREAD_COUNT_QUEUE, value));
+    }
+
+    private record Observed(Counter counter, long value) {}
+
+    private static final class Counter {
+        private final AtomicLong value;
+        private volatile long lastAccess = System.currentTimeMillis();
+
+        Counter(long initial) {
+            this.value = new AtomicLong(initial);
+        }
+
+        AtomicLong value() { return value; }
+        long lastAccess() { return lastAccess; }
+        void touch() { lastAccess = System.currentTimeMillis(); }
+    }
+}
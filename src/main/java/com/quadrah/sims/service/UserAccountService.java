@@ -1,13 +1,16 @@
 package com.quadrah.sims.service;
 
+import com.quadrah.sims.model.KeycloakProvisioningTask;
 import com.quadrah.sims.model.UserAccount;
 import com.quadrah.sims.repository.UserAccountRepository;
 import org.springframework.context.annotation.Lazy;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDateTime;
 import java.util.List;
+import java.util.Objects;
 import java.util.Optional;
 
 @Service
@@ -16,10 +19,23 @@ public class UserAccountService {
 
     private final UserAccountRepository userAccountRepository;
     private final KeycloakService keycloakService;
-
-    public UserAccountService(UserAccountRepository userAccountRepository, @Lazy KeycloakService keycloakService) {
+    private final UserSyncCache userSyncCache;
+    private final LastLoginWriteBehind lastLoginWriteBehind;
+    private final UserDirectoryCache userDirectoryCache;
+    private final KeycloakProvisioningService provisioningService;
+    private final RecipientDirectory recipientDirectory;
+
+    public UserAccountService(UserAccountRepository userAccountRepository, @Lazy KeycloakService keycloakService,
+                              UserSyncCache userSyncCache, LastLoginWriteBehind lastLoginWriteBehind,
+                              UserDirectoryCache userDirectoryCache, KeycloakProvisioningService provisioningService,
+                              RecipientDirectory recipientDirectory) {
         this.userAccountRepository = userAccountRepository;
         this.keycloakService = keycloakService;
+        this.userSyncCache = userSyncCache;
+        this.lastLoginWriteBehind = lastLoginWriteBehind;
+        this.userDirectoryCache = userDirectoryCache;
+        this.provisioningService = provisioningService;
+        this.recipientDirectory = recipientDirectory;
     }
 
     public List<UserAccount> getAllUsers() {
@@ -56,6 +72,15 @@ public class UserAccountService {
                 .orElseThrow(() -> new IllegalArgumentException("User not found in local database with Keycloak ID: " + keycloakId));
     }
 
+    // Cached identity of the current user for hot paths that only need id/role/active.
+    // SUPPORTS keeps a cache hit from opening a transaction and checking out a connection.
+    @Transactional(propagation = Propagation.SUPPORTS)
+    public UserDirectoryCache.UserSnapshot getCurrentUserSnapshot() {
+        String keycloakId = keycloakService.getCurrentUserId();
+        return userDirectoryCache.get(keycloakId, userAccountRepository::findByKeycloakId)
+                .orElseThrow(() -> new IllegalArgumentException("User not found in local database with Keycloak ID: " + keycloakId));
+    }
+
     // ADDED: Create user method
     public UserAccount createUser(UserAccount user) {
         validateUser(user);
@@ -72,7 +97,13 @@ public class UserAccountService {
 
         user.setIsActive(true);
         user.setCreatedAt(LocalDateTime.now());
-        return userAccountRepository.save(user);
+        userDirectoryCache.invalidateAfterCommit(user.getKeycloakId());
+        recipientDirectory.invalidateAfterCommit();
+        UserAccount savedUser = userAccountRepository.save(user);
+
+        // Keycloak-side provisioning happens asynchronously off the durable queue
+        provisioningService.enqueue(savedUser, KeycloakProvisioningTask.Operation.CREATE);
+        return savedUser;
     }
 
     // ADDED: Update user method
@@ -80,6 +111,13 @@ public class UserAccountService {
         UserAccount user = userAccountRepository.findById(id)
                 .orElseThrow(() -> new IllegalArgumentException("User not found with id: " + id));
 
+        // Self-service edits can't change the role or the linked Keycloak account; both are
+        // pushed to Keycloak by the provisioning task, so only admins may set them
+        if (!keycloakService.isAdmin()) {
+            userDetails.setRole(user.getRole());
+            userDetails.setKeycloakId(user.getKeycloakId());
+        }
+
         validateUser(userDetails);
 
         // Check if username is being changed to an existing one
@@ -95,6 +133,13 @@ public class UserAccountService {
             throw new IllegalArgumentException("Keycloak ID already exists: " + userDetails.getKeycloakId());
         }
 
+        // Local edits diverge from the token claims, so force a re-sync on the next request
+        userSyncCache.invalidateAfterCommit(user.getKeycloakId());
+        userSyncCache.invalidateAfterCommit(userDetails.getKeycloakId());
+        userDirectoryCache.invalidateAfterCommit(user.getKeycloakId());
+        userDirectoryCache.invalidateAfterCommit(userDetails.getKeycloakId());
+        recipientDirectory.invalidateAfterCommit();
+
         user.setKeycloakId(userDetails.getKeycloakId());
         user.setUsername(userDetails.getUsername());
         user.setFirstName(userDetails.getFirstName());
@@ -102,7 +147,11 @@ public class UserAccountService {
         user.setEmail(userDetails.getEmail());
         user.setRole(userDetails.getRole());
 
-        return userAccountRepository.save(user);
+        UserAccount savedUser = userAccountRepository.save(user);
+        provisioningService.enqueue(savedUser, savedUser.getKeycloakId() == null
+                ? KeycloakProvisioningTask.Operation.CREATE
+                : KeycloakProvisioningTask.Operation.UPDATE);
+        return savedUser;
     }
 
     public UserAccount createOrUpdateUserFromKeycloak(String keycloakId, String username, String email,
@@ -110,17 +159,24 @@ public class UserAccountService {
         Optional<UserAccount> existingUser = userAccountRepository.findByKeycloakId(keycloakId);
 
         if (existingUser.isPresent()) {
-            // Update existing user
+            // Update existing user. The periodic re-sync usually finds nothing new; then neither the
+            // row nor the cached directories are touched (lastLogin is LastLoginWriteBehind's job)
             UserAccount user = existingUser.get();
+            if (matchesClaims(user, username, email, firstName, lastName, role)) {
+                return user;
+            }
+            userDirectoryCache.invalidateAfterCommit(keycloakId);
+            recipientDirectory.invalidateAfterCommit();
             user.setUsername(username);
             user.setEmail(email);
             user.setFirstName(firstName);
             user.setLastName(lastName);
             user.setRole(role);
-            user.setLastLogin(LocalDateTime.now());
             return userAccountRepository.save(user);
         } else {
             // Create new user
+            userDirectoryCache.invalidateAfterCommit(keycloakId);
+            recipientDirectory.invalidateAfterCommit();
             UserAccount newUser = new UserAccount();
             newUser.setKeycloakId(keycloakId);
             newUser.setUsername(username);
@@ -129,20 +185,27 @@ public class UserAccountService {
             newUser.setLastName(lastName);
             newUser.setRole(role);
             newUser.setIsActive(true);
-            newUser.setLastLogin(LocalDateTime.now());
             newUser.setCreatedAt(LocalDateTime.now());
             return userAccountRepository.save(newUser);
         }
     }
 
+    private static boolean matchesClaims(UserAccount user, String username, String email, String firstName,
+                                         String lastName, UserAccount.UserRole role) {
+        return Objects.equals(user.getUsername(), username)
+                && Objects.equals(user.getEmail(), email)
+                && Objects.equals(user.getFirstName(), firstName)
+                && Objects.equals(user.getLastName(), lastName)
+                && user.getRole() == role;
+    }
+
+    public Optional<KeycloakProvisioningTask> getProvisioningStatus(Long userId) {
+        return provisioningService.getLatestTask(userId);
+    }
+
     public void recordLogin() {
-        String keycloakId = keycloakService.getCurrentUserId();
-        Optional<UserAccount> userOpt = userAccountRepository.findByKeycloakId(keycloakId);
-        if (userOpt.isPresent()) {
-            UserAccount user = userOpt.get();
-            user.setLastLogin(LocalDateTime.now());
-            userAccountRepository.save(user);
-        }
+        // Buffered; written by the next batched flush
+        lastLoginWriteBehind.touch(keycloakService.getCurrentUserId());
     }
 
     public void deactivateUser(Long id) {
@@ -150,6 +213,11 @@ public class UserAccountService {
                 .orElseThrow(() -> new IllegalArgumentException("User not found with id: " + id));
         user.setIsActive(false);
         userAccountRepository.save(user);
+        userSyncCache.invalidateAfterCommit(user.getKeycloakId());
+        userDirectoryCache.invalidateAfterCommit(user.getKeycloakId());
+        recipientDirectory.invalidateAfterCommit();
+        // Disables the Keycloak account too, so the user can't keep signing in
+        provisioningService.enqueue(user, KeycloakProvisioningTask.Operation.DISABLE);
     }
 
     private void validateUser(UserAccount user) {
@@ -0,0 +1,113 @@
+package com.quadrah.sims.service;
+
+import com.quadrah.sims.model.UserAccount;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.function.Function;
+
+// In-process map of keycloakId -> immutable user snapshot, used by getCurrentUser-style lookups
+// and @PreAuthorize checks so they don't hit user_accounts on every request
+@Component
+public class UserDirectoryCache {
+
+    private final Duration ttl;
+    private final Map<String, CachedSnapshot> entries;
+
+    private final Counter hits;
+    private final Counter misses;
+
+    public UserDirectoryCache(@Value("${app.user-directory.ttl:5m}") Duration ttl,
+                              @Value("${app.user-directory.max-entries:10000}") int maxEntries,
+                              MeterRegistry meterRegistry) {
+        this.ttl = ttl;
+        this.entries = new LinkedHashMap<>(256, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, CachedSnapshot> eldest) {
+                return size() > maxEntries;
+            }
+        };
+        this.hits = Counter.builder("sims.user.directory.cache")
+                .tag("result", "hit")
+                .description("User directory cache lookups")
+                .register(meterRegistry);
+        this.misses = Counter.builder("sims.user.directory.cache")
+                .tag("result", "miss")
+                .description("User directory cache lookups")
+                .register(meterRegistry);
+        meterRegistry.gauge("sims.user.directory.cache.size", entries, this::sizeOf);
+    }
+
+    public Optional<UserSnapshot> get(String keycloakId, Function<String, Optional<UserAccount>> loader) {
+        CachedSnapshot cached;
+        synchronized (entries) {
+            cached = entries.get(keycloakId);
+        }
+        if (cached != null && cached.loadedAt().plus(ttl).isAfter(Instant.now())) {
+            hits.increment();
+            return Optional.of(cached.snapshot());
+        }
+
+        misses.increment();
+        Optional<UserSnapshot> loaded = loader.apply(keycloakId).map(UserSnapshot::of);
+        loaded.ifPresent(snapshot -> {
+            synchronized (entries) {
+                entries.put(keycloakId, new CachedSnapshot(snapshot, Instant.now()));
+            }
+        });
+        return loaded;
+    }
+
+    public void invalidate(String keycloakId) {
+        if (keycloakId == null) {
+            return;
+        }
+        synchronized (entries) {
+            entries.remove(keycloakId);
+        }
+    }
+
+    // Evicts now and again once the surrounding transaction commits, so a reader that
+    // reloads the old row mid-transaction can't leave a stale snapshot behind
+    public void invalidateAfterCommit(String keycloakId) {
+        invalidate(keycloakId);
+        if (keycloakId != null && TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    invalidate(keycloakId);
+                }
+            });
+        }
+    }
+
+    public void invalidateAll() {
+        synchronized (entries) {
+            entries.clear();
+        }
+    }
+
+    private int sizeOf(Map<String, CachedSnapshot> map) {
+        synchronized (entries) {
+            return map.size();
+        }
+    }
+
+    public record UserSnapshot(Long id, String keycloakId, String username, UserAccount.UserRole role, boolean active) {
+        static UserSnapshot of(UserAccount user) {
+            return new UserSnapshot(user.getId(), user.getKeycloakId(), user.getUsername(), user.getRole(),
+                    Boolean.TRUE.equals(user.getIsActive()));
+        }
+    }
+
+    private record CachedSnapshot(UserSnapshot snapshot, Instant loadedAt) {}
+}
@@ -0,0 +1,84 @@
+package com.quadrah.sims.service;
+
+import com.quadrah.sims.model.UserAccount;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+// Remembers which Keycloak identities have already been synced to user_accounts, so the
+// JWT converter only writes when the identity claims change or the refresh interval expires
+@Component
+public class UserSyncCache {
+
+    private final Duration refreshInterval;
+    private final Map<String, SyncEntry> entries;
+
+    public UserSyncCache(@Value("${app.user-sync.refresh-interval:15m}") Duration refreshInterval,
+                         @Value("${app.user-sync.max-entries:10000}") int maxEntries) {
+        this.refreshInterval = refreshInterval;
+        // Access-ordered so the least recently seen subject is evicted first
+        this.entries = new LinkedHashMap<>(256, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, SyncEntry> eldest) {
+                return size() > maxEntries;
+            }
+        };
+    }
+
+    public boolean needsSync(String keycloakId, Claims claims) {
+        SyncEntry entry;
+        synchronized (entries) {
+            entry = entries.get(keycloakId);
+        }
+        return entry == null
+                || !entry.claims().equals(claims)
+                || entry.syncedAt().plus(refreshInterval).isBefore(Instant.now());
+    }
+
+    public void markSynced(String keycloakId, Claims claims) {
+        synchronized (entries) {
+            entries.put(keycloakId, new SyncEntry(claims, Instant.now()));
+        }
+    }
+
+    public void invalidate(String keycloakId) {
+        if (keycloakId == null) {
+            return;
+        }
+        synchronized (entries) {
+            entries.remove(keycloakId);
+        }
+    }
+
+    // Evicts now and again once the transaction commits, so a sync racing with the write can't
+    // re-cache the claims the write is replacing
+    public void invalidateAfterCommit(String keycloakId) {
+        invalidate(keycloakId);
+        if (keycloakId != null && TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    invalidate(keycloakId);
+                }
+            });
+        }
+    }
+
+    public void invalidateAll() {
+        synchronized (entries) {
+            entries.clear();
+        }
+    }
+
+    // The identity claims written to user_accounts; compared by value, so no two different sets collide
+    public record Claims(String username, String email, String firstName, String lastName,
+                         UserAccount.UserRole role) {}
+
+    private record SyncEntry(Claims claims, Instant syncedAt) {}
+}
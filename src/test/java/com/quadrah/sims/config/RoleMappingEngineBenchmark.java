@@ -0,0 +1,169 @@
+package com.quadrah.sims.config;
+
+import com.quadrah.sims.model.UserAccount;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.oauth2.jwt.Jwt;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+// Per-request cost of turning a token's role claims into authorities and the local role.
+// "doubleWalk" is the converter's previous code (minus its console logging): the claims were
+// walked once for the authorities and once more for the role, and the whole role set was
+// lowercased again for each of the three role checks. "singlePass" is RoleMappingEngine.resolve.
+// Run with main() from the test classpath, e.g. from the IDE after mvn test-compile.
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@State(Scope.Benchmark)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class RoleMappingEngineBenchmark {
+
+    // Roles per claim: a typical token carries a handful, a heavily grouped account a few dozen
+    @Param({"5", "40"})
+    public int rolesPerClaim;
+
+    private RoleMappingEngine engine;
+    private Jwt jwt;
+
+    @Setup
+    public void setUp() {
+        engine = new RoleMappingEngine(new String[]{"admin"}, new String[]{"nurse"}, new String[]{"teacher"},
+                UserAccount.UserRole.TEACHER, new String[]{"school-infirmary-client"}, new String[]{"account"});
+
+        List<String> realmRoles = roles("realm-role-", "offline_access", "Nurse");
+        List<String> clientRoles = roles("client-role-", "teacher");
+        List<String> accountRoles = roles("account-role-", "manage-account");
+        jwt = Jwt.withTokenValue("token")
+                .header("alg", "none")
+                .subject("9f0c5b1e-7d7a-4b8e-9a43-2f6f0e4a1c11")
+                .claim("realm_access", Map.of("roles", realmRoles))
+                .claim("resource_access", Map.of(
+                        "school-infirmary-client", Map.of("roles", clientRoles),
+                        "account", Map.of("roles", accountRoles)))
+                .build();
+    }
+
+    @Benchmark
+    public RoleMappingEngine.Resolution singlePass() {
+        return engine.resolve(jwt);
+    }
+
+    @Benchmark
+    public void doubleWalk(Blackhole blackhole) {
+        blackhole.consume(determineRoleFromJwt(jwt));
+        blackhole.consume(extractAuthorities(jwt));
+    }
+
+    private List<String> roles(String prefix, String... mapped) {
+        List<String> roles = new ArrayList<>(List.of(mapped));
+        for (int i = roles.size(); i < rolesPerClaim; i++) {
+            roles.add(prefix + i);
+        }
+        return roles;
+    }
+
+    private static UserAccount.UserRole determineRoleFromJwt(Jwt jwt) {
+        Set<String> allRoles = extractAllRoles(jwt);
+        if (containsAnyRoleIgnoreCase(allRoles, "admin")) {
+            return UserAccount.UserRole.ADMIN;
+        }
+        if (containsAnyRoleIgnoreCase(allRoles, "nurse")) {
+            return UserAccount.UserRole.NURSE;
+        }
+        if (containsAnyRoleIgnoreCase(allRoles, "teacher")) {
+            return UserAccount.UserRole.TEACHER;
+        }
+        return UserAccount.UserRole.TEACHER;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Set<String> extractAllRoles(Jwt jwt) {
+        Set<String> allRoles = new HashSet<>();
+        Map<String, Object> realmAccess = jwt.getClaim("realm_access");
+        if (realmAccess != null) {
+            List<String> realmRoles = (List<String>) realmAccess.get("roles");
+            if (realmRoles != null) {
+                allRoles.addAll(realmRoles);
+            }
+        }
+        Map<String, Object> resourceAccess = jwt.getClaim("resource_access");
+        if (resourceAccess != null) {
+            for (String clientId : resourceAccess.keySet()) {
+                if ("account".equals(clientId)) {
+                    continue;
+                }
+                Map<String, Object> clientAccess = (Map<String, Object>) resourceAccess.get(clientId);
+                if (clientAccess != null) {
+                    List<String> clientRoles = (List<String>) clientAccess.get("roles");
+                    if (clientRoles != null) {
+                        allRoles.addAll(clientRoles);
+                    }
+                }
+            }
+        }
+        return allRoles;
+    }
+
+    private static boolean containsAnyRoleIgnoreCase(Set<String> roles, String... roleNames) {
+        Set<String> lowerCaseRoles = roles.stream()
+                .map(String::toLowerCase)
+                .collect(Collectors.toSet());
+        for (String roleName : roleNames) {
+            if (lowerCaseRoles.contains(roleName.toLowerCase())) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Collection<GrantedAuthority> extractAuthorities(Jwt jwt) {
+        Set<GrantedAuthority> authorities = new HashSet<>();
+        Map<String, Object> realmAccess = jwt.getClaim("realm_access");
+        if (realmAccess != null) {
+            List<String> roles = (List<String>) realmAccess.get("roles");
+            if (roles != null) {
+                roles.forEach(role -> authorities.add(new SimpleGrantedAuthority("ROLE_" + role.toUpperCase())));
+            }
+        }
+        Map<String, Object> resourceAccess = jwt.getClaim("resource_access");
+        if (resourceAccess != null) {
+            Map<String, Object> clientAccess = (Map<String, Object>) resourceAccess.get("school-infirmary-client");
+            if (clientAccess != null) {
+                List<String> roles = (List<String>) clientAccess.get("roles");
+                if (roles != null) {
+                    roles.forEach(role -> authorities.add(new SimpleGrantedAuthority("ROLE_" + role.toUpperCase())));
+                }
+            }
+        }
+        return authorities;
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder().include(RoleMappingEngineBenchmark.class.getSimpleName()).build()).run();
+    }
+}
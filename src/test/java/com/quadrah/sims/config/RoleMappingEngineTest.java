@@ -0,0 +1,46 @@
+package com.quadrah.sims.config;
+
+import com.quadrah.sims.model.UserAccount;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.oauth2.jwt.Jwt;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+
+class RoleMappingEngineTest {
+
+    @Test
+    void trimsClientIdsAndSkipsBlankEntries() {
+        // As Spring splits "school-infirmary-client, reports-client," and " account, "
+        RoleMappingEngine engine = new RoleMappingEngine(new String[]{"admin"}, new String[]{"nurse"},
+                new String[]{"teacher"}, UserAccount.UserRole.TEACHER,
+                new String[]{"school-infirmary-client", " reports-client", ""}, new String[]{" account", " "});
+
+        RoleMappingEngine.Resolution resolution = engine.resolve(jwt(Map.of(
+                "reports-client", Map.of("roles", List.of("nurse")),
+                "account", Map.of("roles", List.of("admin")))));
+
+        assertEquals(Set.of("ROLE_NURSE"), names(resolution.authorities()));
+        assertEquals(UserAccount.UserRole.NURSE, resolution.role());
+        assertFalse(engine.ranksClient("account"));
+    }
+
+    private static Jwt jwt(Map<String, Object> resourceAccess) {
+        return Jwt.withTokenValue("token")
+                .header("alg", "none")
+                .subject("user")
+                .claim("resource_access", resourceAccess)
+                .build();
+    }
+
+    private static Set<String> names(Collection<GrantedAuthority> authorities) {
+        return authorities.stream().map(GrantedAuthority::getAuthority).collect(Collectors.toSet());
+    }
+}
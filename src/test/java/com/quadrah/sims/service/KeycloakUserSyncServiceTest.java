@@ -0,0 +1,224 @@
+package com.quadrah.sims.service;
+
+import com.quadrah.sims.config.RoleMappingEngine;
+import com.quadrah.sims.model.UserAccount;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import org.jboss.resteasy.client.jaxrs.internal.ResteasyClientBuilderImpl;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.keycloak.OAuth2Constants;
+import org.keycloak.admin.client.Keycloak;
+import org.keycloak.admin.client.KeycloakBuilder;
+import org.mockito.ArgumentCaptor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.Mockito.atLeastOnce;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+
+// Runs the realm sync against a stubbed Keycloak admin REST API served from the JDK HTTP server,
+// through the real admin client, with the database side mocked
+class KeycloakUserSyncServiceTest {
+
+    private static final String REALM = "SIMs";
+
+    private static final String ALICE = """
+            {"id":"kc-alice","username":"alice","email":"alice@school.test","firstName":"Alice","lastName":"Adams","enabled":true}""";
+    private static final String BOB = """
+            {"id":"kc-bob","username":"bob","email":"bob@school.test","firstName":"Bob","enabled":true}""";
+    private static final String CAROL = """
+            {"id":"kc-carol","username":"carol","email":"carol@school.test","firstName":"Carol","lastName":"Clark","enabled":false}""";
+
+    // Effective realm roles and full role mappings per user
+    private static final Map<String, String> REALM_ROLES = Map.of(
+            "kc-alice", "[{\"id\":\"r1\",\"name\":\"offline_access\"},{\"id\":\"r2\",\"name\":\"Nurse\"}]",
+            "kc-bob", "[{\"id\":\"r3\",\"name\":\"default-roles-sims\"}]",
+            "kc-carol", "[]");
+    private static final Map<String, String> ROLE_MAPPINGS = Map.of(
+            "kc-alice", "{}",
+            "kc-bob", "{\"clientMappings\":{\"school-infirmary-client\":{\"id\":\"c1\",\"client\":\"school-infirmary-client\"," +
+                    "\"mappings\":[{\"id\":\"r4\",\"name\":\"admin\"}]}}}",
+            // Roles of ignored clients don't count towards the local role
+            "kc-carol", "{\"clientMappings\":{\"account\":{\"id\":\"c2\",\"client\":\"account\"," +
+                    "\"mappings\":[{\"id\":\"r5\",\"name\":\"admin\"}]}}}");
+
+    private final List<String> requestedPages = new ArrayList<>();
+    private volatile boolean failUserListing;
+
+    private HttpServer server;
+    private Keycloak keycloak;
+    private ExecutorService adminExecutor;
+    private JdbcTemplate jdbcTemplate;
+    private UserDirectoryCache userDirectoryCache;
+    private RecipientDirectory recipientDirectory;
+    private final List<Runnable> submittedJobs = new ArrayList<>();
+    private KeycloakUserSyncService syncService;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.createContext("/", this::handle);
+        server.start();
+
+        keycloak = KeycloakBuilder.builder()
+                .serverUrl("http://127.0.0.1:" + server.getAddress().getPort())
+                .realm(REALM)
+                .grantType(OAuth2Constants.CLIENT_CREDENTIALS)
+                .clientId("sims_backend")
+                .clientSecret("secret")
+                .resteasyClient(new ResteasyClientBuilderImpl().connectionPoolSize(4).build())
+                .build();
+        adminExecutor = Executors.newFixedThreadPool(2);
+        jdbcTemplate = mock(JdbcTemplate.class);
+        userDirectoryCache = mock(UserDirectoryCache.class);
+        recipientDirectory = mock(RecipientDirectory.class);
+        RoleMappingEngine roleMappingEngine = new RoleMappingEngine(new String[]{"admin"}, new String[]{"nurse"},
+                new String[]{"teacher"}, UserAccount.UserRole.TEACHER,
+                new String[]{"school-infirmary-client"}, new String[]{"account"});
+
+        // Page size 2 over three users: one full page, one short page; batch size 2 flushes after each
+        syncService = new KeycloakUserSyncService(keycloak, REALM, jdbcTemplate,
+                new TransactionTemplate(mock(PlatformTransactionManager.class)), roleMappingEngine,
+                userDirectoryCache, recipientDirectory, adminExecutor, submittedJobs::add, 2, 2);
+    }
+
+    @AfterEach
+    void tearDown() {
+        keycloak.close();
+        adminExecutor.shutdownNow();
+        server.stop(0);
+    }
+
+    @Test
+    void syncRunsInTheBackgroundAndUpsertsEveryPage() {
+        KeycloakUserSyncService.SyncJob started = syncService.startSync();
+
+        assertEquals(KeycloakUserSyncService.SyncJob.Status.RUNNING, started.status());
+        assertEquals(started, syncService.getJob(started.id()).orElseThrow());
+        assertThrows(IllegalStateException.class, syncService::startSync);
+
+        runSubmittedJob();
+
+        KeycloakUserSyncService.SyncJob finished = syncService.getJob(started.id()).orElseThrow();
+        assertEquals(KeycloakUserSyncService.SyncJob.Status.SUCCEEDED, finished.status());
+        assertNotNull(finished.finishedAt());
+        assertEquals(3, finished.report().usersFetched());
+        assertEquals(3, finished.report().usersUpserted());
+        assertEquals(0, finished.report().usersFailed());
+        assertEquals(List.of("0/2", "2/2"), requestedPages);
+
+        List<Object[]> upserted = upsertedRows();
+        assertEquals(List.of("kc-alice", "kc-bob", "kc-carol"), upserted.stream().map(row -> (String) row[0]).toList());
+        assertEquals(List.of("NURSE", "ADMIN", "TEACHER"), upserted.stream().map(row -> (String) row[5]).toList());
+        assertEquals(List.of(true, true, false), upserted.stream().map(row -> (Boolean) row[6]).toList());
+        // A missing last name is stored as empty, matching the NOT NULL column
+        assertEquals("", upserted.get(1)[4]);
+
+        verify(userDirectoryCache).invalidateAll();
+        verify(recipientDirectory).invalidate();
+
+        // Finished jobs free the slot for the next sync
+        assertEquals(KeycloakUserSyncService.SyncJob.Status.RUNNING, syncService.startSync().status());
+    }
+
+    @Test
+    void aFailingSyncIsReportedOnTheJob() {
+        failUserListing = true;
+
+        KeycloakUserSyncService.SyncJob started = syncService.startSync();
+        runSubmittedJob();
+
+        KeycloakUserSyncService.SyncJob finished = syncService.getJob(started.id()).orElseThrow();
+        assertEquals(KeycloakUserSyncService.SyncJob.Status.FAILED, finished.status());
+        assertNull(finished.report());
+        assertNotNull(finished.error());
+        assertEquals(KeycloakUserSyncService.SyncJob.Status.RUNNING, syncService.startSync().status());
+    }
+
+    private void runSubmittedJob() {
+        assertEquals(1, submittedJobs.size());
+        submittedJobs.remove(0).run();
+    }
+
+    private List<Object[]> upsertedRows() {
+        @SuppressWarnings("unchecked")
+        ArgumentCaptor<List<Object[]>> batches = ArgumentCaptor.forClass(List.class);
+        ArgumentCaptor<String> statements = ArgumentCaptor.forClass(String.class);
+        verify(jdbcTemplate, atLeastOnce()).batchUpdate(statements.capture(), batches.capture());
+        List<Object[]> rows = new ArrayList<>();
+        for (int i = 0; i < statements.getAllValues().size(); i++) {
+            if (statements.getAllValues().get(i).startsWith("INSERT INTO user_accounts")) {
+                rows.addAll(batches.getAllValues().get(i));
+            }
+        }
+        return rows;
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        String path = exchange.getRequestURI().getPath();
+        String usersPath = "/admin/realms/" + REALM + "/users";
+        if (path.equals("/realms/" + REALM + "/protocol/openid-connect/token")) {
+            respond(exchange, 200, "{\"access_token\":\"stub-token\",\"token_type\":\"Bearer\",\"expires_in\":300}");
+        } else if (path.equals(usersPath)) {
+            if (failUserListing) {
+                respond(exchange, 500, "{\"error\":\"unavailable\"}");
+                return;
+            }
+            String first = queryParam(exchange, "first");
+            synchronized (requestedPages) {
+                requestedPages.add(first + "/" + queryParam(exchange, "max"));
+            }
+            respond(exchange, 200, "0".equals(first) ? "[" + ALICE + "," + BOB + "]" : "[" + CAROL + "]");
+        } else if (path.startsWith(usersPath + "/") && path.endsWith("/role-mappings/realm/composite")) {
+            respond(exchange, 200, REALM_ROLES.get(userId(path, usersPath)));
+        } else if (path.startsWith(usersPath + "/") && path.endsWith("/role-mappings")) {
+            respond(exchange, 200, ROLE_MAPPINGS.get(userId(path, usersPath)));
+        } else {
+            respond(exchange, 404, "{}");
+        }
+    }
+
+    private static String queryParam(HttpExchange exchange, String name) {
+        String query = exchange.getRequestURI().getQuery();
+        if (query != null) {
+            for (String param : query.split("&")) {
+                if (param.startsWith(name + "=")) {
+                    return param.substring(name.length() + 1);
+                }
+            }
+        }
+        return null;
+    }
+
+    private static String userId(String path, String usersPath) {
+        String rest = path.substring(usersPath.length() + 1);
+        return rest.substring(0, rest.indexOf('/'));
+    }
+
+    private static void respond(HttpExchange exchange, int status, String body) throws IOException {
+        byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().add("Content-Type", "application/json");
+        exchange.sendResponseHeaders(status, bytes.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(bytes);
+        }
+    }
+}
@@ -0,0 +1,41 @@
+package com.quadrah.sims.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class LastLoginWriteBehindTest {
+
+    @Test
+    void aFailedFlushIsRetriedOnTheNextOne() {
+        JdbcTemplate jdbcTemplate = mock(JdbcTemplate.class);
+        when(jdbcTemplate.batchUpdate(anyString(), anyList()))
+                .thenThrow(new DataAccessResourceFailureException("connection refused"))
+                .thenReturn(new int[]{1, 1});
+        LastLoginWriteBehind writeBehind = new LastLoginWriteBehind(jdbcTemplate, new SimpleMeterRegistry());
+
+        writeBehind.touch("kc-1");
+        writeBehind.touch("kc-2");
+        writeBehind.flush();
+        writeBehind.flush();
+
+        @SuppressWarnings("unchecked")
+        ArgumentCaptor<List<Object[]>> captor = ArgumentCaptor.forClass(List.class);
+        verify(jdbcTemplate, times(2)).batchUpdate(anyString(), captor.capture());
+        List<Object[]> retried = captor.getAllValues().get(1);
+        assertEquals(2, retried.size());
+        assertEquals(List.of("kc-1", "kc-2"), retried.stream().map(row -> (String) row[1]).sorted().toList());
+    }
+}
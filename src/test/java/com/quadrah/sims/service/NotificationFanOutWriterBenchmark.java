@@ -0,0 +1,119 @@
+package com.quadrah.sims.service;
+
+import com.quadrah.sims.model.Notification;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.SingleConnectionDataSource;
+import org.springframework.jdbc.support.GeneratedKeyHolder;
+import org.springframework.jdbc.support.KeyHolder;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.PreparedStatement;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+// Cost of writing one notification per recipient: the set-based INSERT ... SELECT FROM unnest
+// against one INSERT round trip per recipient, which is what Hibernate issued for the IDENTITY
+// ids before. Each invocation runs in a transaction that is rolled back, so the table doesn't grow.
+// Needs the application's Postgres schema with at least one user; connection settings default to
+// application.properties and can be overridden with -Dbenchmark.jdbc.url/.username/.password.
+// Run with main() from the test classpath, e.g. from the IDE after mvn test-compile.
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Benchmark)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class NotificationFanOutWriterBenchmark {
+
+    private static final String SINGLE_INSERT_SQL =
+            "INSERT INTO notifications (title, message, type, status, user_id, related_entity_type, related_entity_id, created_at) " +
+            "VALUES (?, ?, ?, 'UNREAD', ?, ?, ?, ?)";
+
+    @Param({"10", "100", "1000"})
+    public int recipients;
+
+    private JdbcTemplate jdbcTemplate;
+    private TransactionTemplate transactionTemplate;
+    private NotificationFanOutWriter writer;
+    private List<Long> recipientIds;
+
+    @Setup
+    public void setUp() {
+        SingleConnectionDataSource dataSource = new SingleConnectionDataSource(
+                System.getProperty("benchmark.jdbc.url", "jdbc:postgresql://localhost:5432/syte_db?currentSchema=public"),
+                System.getProperty("benchmark.jdbc.username", "syte_user"),
+                System.getProperty("benchmark.jdbc.password", "syte_pwd"),
+                true);
+        jdbcTemplate = new JdbcTemplate(dataSource);
+        transactionTemplate = new TransactionTemplate(new DataSourceTransactionManager(dataSource));
+        writer = new NotificationFanOutWriter(jdbcTemplate);
+
+        // Existing users satisfy the foreign key; repeated when there are fewer than needed
+        List<Long> users = jdbcTemplate.queryForList("SELECT id FROM user_accounts ORDER BY id LIMIT ?", Long.class, recipients);
+        if (users.isEmpty()) {
+            throw new IllegalStateException("The benchmark database needs at least one row in user_accounts");
+        }
+        recipientIds = new ArrayList<>(recipients);
+        for (int i = 0; i < recipients; i++) {
+            recipientIds.add(users.get(i % users.size()));
+        }
+    }
+
+    @Benchmark
+    public Map<Long, Long> setBased() {
+        return transactionTemplate.execute(status -> {
+            status.setRollbackOnly();
+            return writer.insert("Benchmark", "Fan-out benchmark", Notification.NotificationType.SYSTEM_ALERT,
+                    "BENCHMARK", 1L, LocalDateTime.now(), recipientIds);
+        });
+    }
+
+    @Benchmark
+    public Map<Long, Long> rowByRow() {
+        return transactionTemplate.execute(status -> {
+            status.setRollbackOnly();
+            Timestamp createdAt = Timestamp.valueOf(LocalDateTime.now());
+            Map<Long, Long> notificationIds = new HashMap<>();
+            for (Long recipientId : recipientIds) {
+                KeyHolder keyHolder = new GeneratedKeyHolder();
+                jdbcTemplate.update(connection -> {
+                    PreparedStatement statement = connection.prepareStatement(SINGLE_INSERT_SQL, new String[]{"id"});
+                    statement.setString(1, "Benchmark");
+                    statement.setString(2, "Fan-out benchmark");
+                    statement.setString(3, Notification.NotificationType.SYSTEM_ALERT.name());
+                    statement.setLong(4, recipientId);
+                    statement.setString(5, "BENCHMARK");
+                    statement.setLong(6, 1L);
+                    statement.setTimestamp(7, createdAt);
+                    return statement;
+                }, keyHolder);
+                notificationIds.put(recipientId, keyHolder.getKey().longValue());
+            }
+            return notificationIds;
+        });
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder().include(NotificationFanOutWriterBenchmark.class.getSimpleName()).build()).run();
+    }
+}
@@ -0,0 +1,96 @@
+package com.quadrah.sims.service;
+
+import com.quadrah.sims.model.Notification;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import javax.sql.DataSource;
+import java.sql.Array;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+class NotificationFanOutWriterTest {
+
+    private static final LocalDateTime CREATED_AT = LocalDateTime.of(2026, 3, 2, 8, 15);
+
+    private DataSource dataSource;
+    private Connection connection;
+    private PreparedStatement statement;
+    private ResultSet resultSet;
+    private NotificationFanOutWriter writer;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        dataSource = mock(DataSource.class);
+        connection = mock(Connection.class);
+        statement = mock(PreparedStatement.class);
+        resultSet = mock(ResultSet.class);
+        when(dataSource.getConnection()).thenReturn(connection);
+        when(connection.prepareStatement(anyString())).thenReturn(statement);
+        when(statement.executeQuery()).thenReturn(resultSet);
+        writer = new NotificationFanOutWriter(new JdbcTemplate(dataSource));
+    }
+
+    @Test
+    void mapsEachReturnedRowToItsRecipient() throws Exception {
+        Array recipientArray = mock(Array.class);
+        when(connection.createArrayOf(eq("bigint"), any(Object[].class))).thenReturn(recipientArray);
+        // RETURNING id, user_id doesn't follow the order of the input array
+        when(resultSet.next()).thenReturn(true, true, true, false);
+        when(resultSet.getLong("user_id")).thenReturn(30L, 10L, 20L);
+        when(resultSet.getLong("id")).thenReturn(903L, 901L, 902L);
+
+        Map<Long, Long> notificationIds = writer.insert("Low stock", "Ibuprofen is running low",
+                Notification.NotificationType.LOW_STOCK, "MEDICATION", null, CREATED_AT, List.of(10L, 20L, 30L));
+
+        assertEquals(Map.of(10L, 901L, 20L, 902L, 30L, 903L), notificationIds);
+        verify(connection).createArrayOf(eq("bigint"), any(Object[].class));
+        verify(statement).setArray(7, recipientArray);
+        verify(statement).setString(3, "LOW_STOCK");
+        verify(statement).setNull(5, Types.BIGINT);
+        verify(statement).setTimestamp(6, Timestamp.valueOf(CREATED_AT));
+    }
+
+    @Test
+    void passesTheRecipientIdsAsOneArray() throws Exception {
+        Object[][] passed = new Object[1][];
+        when(connection.createArrayOf(eq("bigint"), any(Object[].class))).thenAnswer(invocation -> {
+            passed[0] = invocation.getArgument(1);
+            return mock(Array.class);
+        });
+
+        writer.insert("Checkup", "Annual checkup due",
+                Notification.NotificationType.STUDENT_CHECKUP, "STUDENT", 42L, CREATED_AT, List.of(5L, 6L, 7L));
+
+        assertArrayEquals(new Object[]{5L, 6L, 7L}, passed[0]);
+        verify(statement).setLong(5, 42L);
+    }
+
+    @Test
+    void noRecipientsMeansNoStatement() {
+        Map<Long, Long> notificationIds = writer.insert(
+                "Alert", "Nothing to send", Notification.NotificationType.SYSTEM_ALERT, null, null,
+                CREATED_AT, List.of());
+
+        assertTrue(notificationIds.isEmpty());
+        verifyNoInteractions(dataSource);
+    }
+}
@@ -0,0 +1,101 @@
+package com.quadrah.sims.service;
+
+import com.quadrah.sims.dto.StudentSummary;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+// Search latency of the student directory over a generated roster. The two-character prefix is
+// the worst case (longest postings); the others are the usual search-box inputs.
+// Run with main() from the test classpath, e.g. from the IDE after mvn test-compile.
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Benchmark)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class StudentDirectoryBenchmark {
+
+    private static final String[] FIRST_NAMES = {
+            "Aaliyah", "Aiden", "Amara", "Andre", "Ava", "Benjamin", "Camila", "Carter", "Chloe", "Daniel",
+            "Elena", "Elijah", "Emma", "Ethan", "Fatima", "Gabriel", "Grace", "Hannah", "Isaac", "Isabella",
+            "Jacob", "Jayden", "Jose", "Kofi", "Layla", "Liam", "Lucas", "Maria", "Mason", "Mia",
+            "Noah", "Nora", "Olivia", "Omar", "Priya", "Quinn", "Sofia", "Thomas", "Yusuf", "Zoe"
+    };
+    private static final String[] LAST_NAMES = {
+            "Adams", "Ahmed", "Allen", "Baker", "Brown", "Carter", "Chen", "Clark", "Davis", "Diaz",
+            "Evans", "Garcia", "Green", "Hall", "Harris", "Hernandez", "Hill", "Jackson", "Johnson", "Kim",
+            "King", "Lee", "Lewis", "Lopez", "Martin", "Martinez", "Mensah", "Moore", "Nguyen", "Okafor",
+            "Patel", "Perez", "Robinson", "Rodriguez", "Scott", "Singh", "Smith", "Taylor", "Walker", "Wright"
+    };
+
+    @Param({"50000"})
+    public int students;
+
+    private StudentDirectory.Index index;
+    private String[] twoCharPrefix;
+    private String[] lastName;
+    private String[] substring;
+    private String[] fullName;
+    private String[] studentId;
+
+    @Setup
+    public void setUp() {
+        Random random = new Random(42);
+        index = new StudentDirectory.Index();
+        for (int i = 1; i <= students; i++) {
+            index.put(new StudentSummary((long) i, String.format("S%06d", i),
+                    FIRST_NAMES[random.nextInt(FIRST_NAMES.length)], LAST_NAMES[random.nextInt(LAST_NAMES.length)],
+                    String.valueOf(1 + random.nextInt(12)), "R" + random.nextInt(60), null, null));
+        }
+        twoCharPrefix = StudentDirectory.tokenize("ma");
+        lastName = StudentDirectory.tokenize("Nguyen");
+        substring = StudentDirectory.tokenize("art");
+        fullName = StudentDirectory.tokenize("Olivia Mart");
+        studentId = StudentDirectory.tokenize("S031415");
+    }
+
+    @Benchmark
+    public List<StudentSummary> twoCharacterPrefix() {
+        return index.search(twoCharPrefix, 20);
+    }
+
+    @Benchmark
+    public List<StudentSummary> exactLastName() {
+        return index.search(lastName, 20);
+    }
+
+    @Benchmark
+    public List<StudentSummary> substringInName() {
+        return index.search(substring, 20);
+    }
+
+    @Benchmark
+    public List<StudentSummary> firstNameAndLastNamePrefix() {
+        return index.search(fullName, 20);
+    }
+
+    @Benchmark
+    public List<StudentSummary> exactStudentId() {
+        return index.search(studentId, 20);
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder().include(StudentDirectoryBenchmark.class.getSimpleName()).build()).run();
+    }
+}
@@ -0,0 +1,139 @@
+package com.quadrah.sims.service;
+
+import com.quadrah.sims.dto.StudentSummary;
+import com.quadrah.sims.repository.StudentRepository;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class StudentDirectoryTest {
+
+    private static final StudentSummary ANN_LEE = student(1L, "S1001", "Ann", "Lee");
+    private static final StudentSummary ANNABEL_SMITH = student(2L, "S1002", "Annabel", "Smith");
+    private static final StudentSummary JOANNA_BROWN = student(3L, "S1003", "Joanna", "Brown");
+    private static final StudentSummary JOSE_ALVAREZ = student(4L, "S2001", "José", "Álvarez");
+
+    @Test
+    void ranksExactThenPrefixThenSubstringMatches() {
+        StudentDirectory.Index index = index(JOANNA_BROWN, ANNABEL_SMITH, ANN_LEE);
+
+        assertEquals(List.of(1L, 2L, 3L), ids(search(index, "ann", 20)));
+    }
+
+    @Test
+    void shortTokensMatchPrefixesOnlyAndTiesSortByName() {
+        StudentDirectory.Index index = index(ANNABEL_SMITH, JOANNA_BROWN, ANN_LEE);
+
+        // "an" is inside "joanna" but shorter than a trigram, so only prefixes count
+        assertEquals(List.of(1L, 2L), ids(search(index, "an", 20)));
+    }
+
+    @Test
+    void everyTokenHasToMatch() {
+        StudentDirectory.Index index = index(ANN_LEE, ANNABEL_SMITH, JOANNA_BROWN);
+
+        assertEquals(List.of(2L), ids(search(index, "ann smi", 20)));
+        assertEquals(List.of(), ids(search(index, "ann zzz", 20)));
+    }
+
+    @Test
+    void matchesStudentIdsAndIgnoresCaseAndAccents() {
+        StudentDirectory.Index index = index(ANN_LEE, ANNABEL_SMITH, JOSE_ALVAREZ);
+
+        assertEquals(List.of(2L), ids(search(index, "s1002", 20)));
+        assertEquals(List.of(1L, 2L), ids(search(index, "S100", 20)));
+        assertEquals(List.of(4L), ids(search(index, "JOSE alva", 20)));
+    }
+
+    @Test
+    void appliesTheLimitAfterRanking() {
+        StudentDirectory.Index index = index(JOANNA_BROWN, ANNABEL_SMITH, ANN_LEE);
+
+        assertEquals(List.of(1L, 2L), ids(search(index, "ann", 2)));
+    }
+
+    @Test
+    void removedAndReplacedStudentsLeaveNoStaleMatches() {
+        StudentDirectory.Index index = index(ANN_LEE, ANNABEL_SMITH, JOANNA_BROWN);
+
+        index.remove(ANNABEL_SMITH.getId());
+        index.put(student(3L, "S1003", "Joan", "Brown"));
+
+        assertEquals(List.of(1L), ids(search(index, "ann", 20)));
+        assertEquals(List.of(3L), ids(search(index, "joan", 20)));
+        assertEquals(2, index.liveCount());
+    }
+
+    @Test
+    void compactionKeepsTheSurvivorsSearchable() {
+        StudentDirectory.Index index = new StudentDirectory.Index();
+        for (long id = 1; id <= 3000; id++) {
+            index.put(student(id, "S" + id, "Pupil" + id, "Number"));
+        }
+        // More than 1024 tombstones and more than half of the slots: compacts along the way
+        for (long id = 1; id <= 2000; id++) {
+            index.remove(id);
+        }
+        index.put(student(3001L, "S3001", "Pupil3001", "Number"));
+
+        assertEquals(1001, index.liveCount());
+        assertEquals(List.of(2500L), ids(search(index, "pupil2500", 20)));
+        assertEquals(List.of(), ids(search(index, "pupil1500", 20)));
+        assertEquals(List.of(3001L), ids(search(index, "s3001", 20)));
+        assertEquals(50, search(index, "number", 50).size());
+    }
+
+    @Test
+    void changesCommittedDuringARebuildAreReplayedOntoTheNewIndex() {
+        StudentRepository repository = mock(StudentRepository.class);
+        StudentDirectory directory = new StudentDirectory(repository, 20, 100);
+        StudentSummary added = student(5L, "S3001", "Annika", "Young");
+        // The load returns the table as it was read; the writes land while it is running
+        when(repository.findAllSummaries()).thenAnswer(invocation -> {
+            directory.putAfterCommit(added);
+            directory.removeAfterCommit(ANNABEL_SMITH.getId());
+            return List.of(ANN_LEE, ANNABEL_SMITH, JOANNA_BROWN);
+        });
+
+        directory.refresh();
+
+        assertEquals(List.of(1L, 5L, 3L), ids(directory.search("ann", null)));
+    }
+
+    @Test
+    void blankQueriesMatchNothing() {
+        StudentRepository repository = mock(StudentRepository.class);
+        StudentDirectory directory = new StudentDirectory(repository, 20, 100);
+
+        assertTrue(directory.search("   ", null).isEmpty());
+        assertTrue(directory.search(null, null).isEmpty());
+    }
+
+    private static List<StudentSummary> search(StudentDirectory.Index index, String query, int limit) {
+        return index.search(StudentDirectory.tokenize(query), limit);
+    }
+
+    private static StudentDirectory.Index index(StudentSummary... students) {
+        StudentDirectory.Index index = new StudentDirectory.Index();
+        for (StudentSummary student : students) {
+            index.put(student);
+        }
+        return index;
+    }
+
+    private static List<Long> ids(List<StudentSummary> students) {
+        List<Long> ids = new ArrayList<>();
+        students.forEach(student -> ids.add(student.getId()));
+        return ids;
+    }
+
+    private static StudentSummary student(Long id, String studentId, String firstName, String lastName) {
+        return new StudentSummary(id, studentId, firstName, lastName, "5", "5A", null, null);
+    }
+}